@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+
+/**
+ * Shared terms and data generators for the benchmarks.
+ *
+ * @author acoburn
+ */
+final class BenchmarkFixtures {
+
+    static final IRI USER_MANAGED = getInstance().createIRI("http://www.trellisldp.org/ns/trellis#PreferUserManaged");
+    static final IRI SERVER_MANAGED = getInstance().createIRI(
+            "http://www.trellisldp.org/ns/trellis#PreferServerManaged");
+    static final IRI ACCESS_CONTROL = getInstance().createIRI(
+            "http://www.trellisldp.org/ns/trellis#PreferAccessControl");
+    static final IRI AUDIT = getInstance().createIRI("http://www.trellisldp.org/ns/trellis#PreferAudit");
+    static final IRI RDF_SOURCE = getInstance().createIRI("http://www.w3.org/ns/ldp#RDFSource");
+    static final IRI TITLE = getInstance().createIRI("http://purl.org/dc/terms/title");
+
+    /**
+     * Generate quads for a resource, distributed evenly across the user-managed, server-managed,
+     * access control and audit graphs
+     * @param identifier the resource identifier
+     * @param count the number of triples in each graph
+     * @return the quads
+     */
+    static Stream<Quad> quads(final IRI identifier, final int count) {
+        return Stream.of(USER_MANAGED, SERVER_MANAGED, ACCESS_CONTROL, AUDIT).flatMap(graphName ->
+                IntStream.range(0, count).mapToObj(i -> getInstance().createQuad(graphName, identifier, TITLE,
+                        getInstance().createLiteral("Value " + i))));
+    }
+
+    private BenchmarkFixtures() {
+        // prevent instantiation
+    }
+}
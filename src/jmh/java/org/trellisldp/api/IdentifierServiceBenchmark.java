@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for identifier generation at different thread counts.
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+public class IdentifierServiceBenchmark {
+
+    private static final String PREFIX = "trellis:repository/";
+
+    private Supplier<String> uuidGenerator;
+    private Supplier<String> ulidGenerator;
+
+    @Setup
+    public void setUp() {
+        uuidGenerator = new UUIDGenerator().getSupplier(PREFIX, 4, 2);
+        ulidGenerator = new ULIDGenerator().getSupplier(PREFIX, 4, 2);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String uuidGenerator1Thread() {
+        return uuidGenerator.get();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String uuidGenerator4Threads() {
+        return uuidGenerator.get();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String uuidGenerator16Threads() {
+        return uuidGenerator.get();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String ulidGenerator1Thread() {
+        return ulidGenerator.get();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String ulidGenerator4Threads() {
+        return ulidGenerator.get();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String ulidGenerator16Threads() {
+        return ulidGenerator.get();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String randomUUID1Thread() {
+        return PREFIX + UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String randomUUID4Threads() {
+        return PREFIX + UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String randomUUID16Threads() {
+        return PREFIX + UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.time.Instant.now;
+import static java.util.Collections.emptyList;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+
+/**
+ * A {@link Resource} backed by an in-memory list of quads, relying on the default stream methods.
+ *
+ * @author acoburn
+ */
+class InMemoryResource implements Resource {
+
+    private final IRI identifier;
+    private final IRI interactionModel;
+    private final List<Quad> quads;
+    private final Instant modified = now();
+
+    /**
+     * Create an in-memory resource
+     * @param identifier the identifier
+     * @param interactionModel the interaction model
+     * @param quads the quads
+     */
+    InMemoryResource(final IRI identifier, final IRI interactionModel, final List<Quad> quads) {
+        this.identifier = identifier;
+        this.interactionModel = interactionModel;
+        this.quads = quads;
+    }
+
+    @Override
+    public IRI getIdentifier() {
+        return identifier;
+    }
+
+    @Override
+    public IRI getInteractionModel() {
+        return interactionModel;
+    }
+
+    @Override
+    public List<VersionRange> getMementos() {
+        return emptyList();
+    }
+
+    @Override
+    public Stream<? extends Quad> stream() {
+        return quads.stream();
+    }
+
+    @Override
+    public Collection<IRI> getTypes() {
+        return emptyList();
+    }
+
+    @Override
+    public Instant getModified() {
+        return modified;
+    }
+
+    @Override
+    public Boolean hasAcl() {
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Optional.ofNullable;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.stream.Collectors.toList;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * A {@link ResourceService} backed by an in-memory map, relying on the default methods.
+ *
+ * @author acoburn
+ */
+class InMemoryResourceService implements ResourceService {
+
+    private static final IRI TYPE = getInstance().createIRI("http://www.w3.org/1999/02/22-rdf-syntax-ns#type");
+
+    private final Map<IRI, Resource> resources = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<Resource> get(final IRI identifier) {
+        return ofNullable(resources.get(identifier));
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier, final Instant time) {
+        return get(identifier);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> put(final IRI identifier, final IRI ixnModel, final Dataset dataset) {
+        final Stream<? extends Quad> quads = dataset.stream();
+        resources.put(identifier, new InMemoryResource(identifier, ixnModel, quads.collect(toList())));
+        return completedFuture(true);
+    }
+
+    @Override
+    public Stream<IRI> compact(final IRI identifier, final Instant from, final Instant until) {
+        return Stream.empty();
+    }
+
+    @Override
+    public Stream<IRI> purge(final IRI identifier) {
+        resources.remove(identifier);
+        return Stream.empty();
+    }
+
+    @Override
+    public Stream<? extends Triple> scan(final String partition) {
+        return resources.values().stream().map(resource ->
+                getInstance().createTriple(resource.getIdentifier(), TYPE, resource.getInteractionModel()));
+    }
+
+    @Override
+    public Supplier<String> getIdentifierSupplier() {
+        return () -> randomUUID().toString();
+    }
+}
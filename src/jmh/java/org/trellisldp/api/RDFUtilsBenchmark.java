@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.trellisldp.api.BenchmarkFixtures.quads;
+import static org.trellisldp.api.RDFUtils.getInstance;
+import static org.trellisldp.api.RDFUtils.toDataset;
+import static org.trellisldp.api.RDFUtils.toGraph;
+
+import java.util.List;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.Triple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the {@link RDFUtils} collectors.
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+public class RDFUtilsBenchmark {
+
+    @Param({"100"})
+    private int triplesPerGraph;
+
+    private List<Quad> quads;
+    private List<Triple> triples;
+
+    @Setup
+    public void setUp() {
+        quads = quads(getInstance().createIRI("trellis:repository/resource"), triplesPerGraph).collect(toList());
+        triples = quads.stream().map(Quad::asTriple).collect(toList());
+    }
+
+    @Benchmark
+    public Graph toGraphCollector() {
+        return triples.stream().collect(toGraph());
+    }
+
+    @Benchmark
+    public Dataset toDatasetCollector() {
+        return quads.stream().collect(toDataset());
+    }
+}
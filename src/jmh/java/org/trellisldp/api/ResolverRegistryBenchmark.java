@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.commons.rdf.api.IRI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for resolver lookup by URI scheme.
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+public class ResolverRegistryBenchmark {
+
+    private List<BinaryService.Resolver> resolvers;
+    private ResolverRegistry registry;
+    private IRI identifier;
+
+    @Setup
+    public void setUp() {
+        resolvers = singletonList(new FileResolver(emptyMap()));
+        registry = new ResolverRegistry(resolvers);
+        identifier = getInstance().createIRI("file:ab/cd/ef/resource");
+    }
+
+    @Benchmark
+    public Optional<BinaryService.Resolver> registryLookup() {
+        return registry.getResolver(identifier);
+    }
+
+    @Benchmark
+    public Optional<BinaryService.Resolver> schemeSearch() {
+        final String iri = identifier.getIRIString();
+        final String scheme = iri.substring(0, iri.indexOf(':'));
+        return resolvers.stream().filter(resolver -> resolver.getUriSchemes().contains(scheme)).findFirst();
+    }
+}
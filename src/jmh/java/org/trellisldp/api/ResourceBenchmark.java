@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.trellisldp.api.BenchmarkFixtures.AUDIT;
+import static org.trellisldp.api.BenchmarkFixtures.RDF_SOURCE;
+import static org.trellisldp.api.BenchmarkFixtures.SERVER_MANAGED;
+import static org.trellisldp.api.BenchmarkFixtures.USER_MANAGED;
+import static org.trellisldp.api.BenchmarkFixtures.quads;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import org.apache.commons.rdf.api.IRI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the default graph-filtering stream methods of {@link Resource}.
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+public class ResourceBenchmark {
+
+    @Param({"25"})
+    private int triplesPerGraph;
+
+    private final IRI identifier = getInstance().createIRI("trellis:repository/resource");
+
+    private Resource resource;
+
+    @Setup
+    public void setUp() {
+        resource = new InMemoryResource(identifier, RDF_SOURCE, quads(identifier, triplesPerGraph).collect(toList()));
+    }
+
+    @Benchmark
+    public long streamGraph() {
+        return resource.stream(USER_MANAGED).count();
+    }
+
+    @Benchmark
+    public long streamGraphs() {
+        return resource.stream(asList(USER_MANAGED, SERVER_MANAGED)).count();
+    }
+
+    @Benchmark
+    public long streamSingletonGraph() {
+        return resource.stream(singleton(AUDIT)).count();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.trellisldp.api.BenchmarkFixtures.RDF_SOURCE;
+import static org.trellisldp.api.BenchmarkFixtures.SERVER_MANAGED;
+import static org.trellisldp.api.BenchmarkFixtures.USER_MANAGED;
+import static org.trellisldp.api.BenchmarkFixtures.quads;
+import static org.trellisldp.api.RDFUtils.getInstance;
+import static org.trellisldp.api.RDFUtils.toDataset;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the default methods of {@link ResourceService}.
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+public class ResourceServiceBenchmark {
+
+    private static final String BASE_URL = "http://example.com/";
+    private static final String PARTITION = "repository";
+
+    @Param({"100"})
+    private int resources;
+
+    private final ResourceService service = new InMemoryResourceService();
+    private final IRITranslator translator = new IRITranslator(BASE_URL);
+    private final BlankNode bnode = getInstance().createBlankNode("benchmark");
+    private final IRI skolemized = getInstance().createIRI("trellis:bnode/benchmark");
+    private final IRI internal = getInstance().createIRI("trellis:repository/container/resource");
+    private final IRI external = getInstance().createIRI(BASE_URL + "repository/container/resource");
+    private final List<IRI> graphNames = asList(USER_MANAGED, SERVER_MANAGED);
+
+    @Setup
+    public void setUp() {
+        IntStream.range(0, resources).forEach(i -> {
+            final IRI identifier = getInstance().createIRI("trellis:repository/resource/" + i);
+            service.put(identifier, RDF_SOURCE, quads(identifier, 5)
+                    .collect(toDataset()));
+        });
+    }
+
+    @Benchmark
+    public RDFTerm skolemize() {
+        return service.skolemize(bnode);
+    }
+
+    @Benchmark
+    public RDFTerm unskolemize() {
+        return service.unskolemize(skolemized);
+    }
+
+    @Benchmark
+    public IRI toInternal() {
+        return service.toInternal(external, BASE_URL);
+    }
+
+    @Benchmark
+    public IRI toExternal() {
+        return service.toExternal(internal, BASE_URL);
+    }
+
+    @Benchmark
+    public IRI translatorToInternal() {
+        return translator.toInternal(external);
+    }
+
+    @Benchmark
+    public IRI translatorToExternal() {
+        return translator.toExternal(internal);
+    }
+
+    @Benchmark
+    public Object getContainer() {
+        return service.getContainer(internal);
+    }
+
+    @Benchmark
+    public long export() {
+        return service.export(PARTITION, graphNames).count();
+    }
+}
@@ -13,6 +13,9 @@
  */
 package org.trellisldp.api;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.rdf.api.IRI;
@@ -36,4 +39,22 @@ public interface AccessControlService {
      * @return a set of allowable access modes
      */
     Set<IRI> getAccessModes(IRI identifier, Session session);
+
+    /**
+     * Get the allowable access modes for the given session
+     * to each of the specified resources.
+     *
+     * <p>Note: the default implementation calls {@link #getAccessModes(IRI, Session)} for each
+     * resource. Implementations may override this to evaluate resources that share an access
+     * control resource together.</p>
+     *
+     * @param identifiers the resource identifiers
+     * @param session the agent's session
+     * @return the allowable access modes, keyed by resource identifier
+     */
+    default Map<IRI, Set<IRI>> getAllAccessModes(final Collection<IRI> identifiers, final Session session) {
+        final Map<IRI, Set<IRI>> modes = new HashMap<>();
+        identifiers.forEach(identifier -> modes.put(identifier, getAccessModes(identifier, session)));
+        return modes;
+    }
 }
@@ -13,6 +13,14 @@
  */
 package org.trellisldp.api;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.Optional;
 
 /**
@@ -26,4 +34,111 @@ public interface ActivityStreamService {
      * @return a serialization
      */
     Optional<String> serialize(Event event);
+
+    /**
+     * Write an event as an Activity Stream message
+     *
+     * <p>Note: the default implementation writes the result of {@link #serialize(Event)}.
+     * Implementations may override this method to write directly to the writer. The writer is
+     * not closed.</p>
+     *
+     * @param event the event
+     * @param writer the writer
+     * @return true if the event was written; false otherwise
+     */
+    default Boolean serialize(final Event event, final Writer writer) {
+        final Optional<String> message = serialize(event);
+        message.ifPresent(value -> {
+            try {
+                writer.write(value);
+            } catch (final IOException ex) {
+                throw new RuntimeRepositoryException("Error writing activity stream message", ex);
+            }
+        });
+        return message.isPresent();
+    }
+
+    /**
+     * Write a batch of events as a JSON array of Activity Stream messages
+     *
+     * <p>Events that cannot be serialized are omitted. The writer is not closed.</p>
+     *
+     * <p>Note: the default implementation writes each event with {@link #serialize(Event, Writer)},
+     * through a writer that adds the separator before the first character of every message but the
+     * first.</p>
+     *
+     * @param events the events
+     * @param writer the writer
+     * @return the number of events written
+     */
+    default Integer serializeAll(final Collection<? extends Event> events, final Writer writer) {
+        final class Element extends Writer {
+            private boolean separate;
+
+            @Override
+            public void write(final String str) throws IOException {
+                separate();
+                writer.write(str);
+            }
+
+            @Override
+            public void write(final char[] cbuf, final int off, final int len) throws IOException {
+                separate();
+                writer.write(cbuf, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                writer.flush();
+            }
+
+            @Override
+            public void close() {
+                // the underlying writer is left open
+            }
+
+            private void separate() throws IOException {
+                if (separate) {
+                    writer.write(',');
+                    separate = false;
+                }
+            }
+        }
+        final Element element = new Element();
+        int count = 0;
+        try {
+            writer.write('[');
+            final Iterator<? extends Event> iterator = events.iterator();
+            while (iterator.hasNext()) {
+                element.separate = count > 0;
+                if (serialize(iterator.next(), element)) {
+                    count += 1;
+                }
+            }
+            writer.write(']');
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error writing activity stream messages", ex);
+        }
+        return count;
+    }
+
+    /**
+     * Write a batch of events as a UTF-8 encoded JSON array of Activity Stream messages
+     *
+     * <p>Events that cannot be serialized are omitted. The stream is flushed, but not closed.</p>
+     *
+     * @param events the events
+     * @param stream the output stream
+     * @return the number of events written
+     */
+    default Integer serializeAll(final Collection<? extends Event> events, final OutputStream stream) {
+        final Writer writer = new OutputStreamWriter(stream, UTF_8);
+        final Integer count = serializeAll(events, writer);
+        try {
+            writer.flush();
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error writing activity stream messages", ex);
+        }
+        return count;
+    }
 }
@@ -0,0 +1,577 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.list;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.write;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * An {@link EventService} decorator that emits events in batches on a background thread.
+ *
+ * <p>Each event is appended to a local outbox before {@link #emit} returns, and is then handed to
+ * the background thread through a bounded in-memory queue. The background thread sends the queued
+ * events to the decorated service with {@link EventService#emitAll}, in batches of at most the
+ * configured size, whenever the flush interval elapses or a full batch is waiting. After each
+ * batch, the position of the last delivered event is recorded in a checkpoint file next to the
+ * outbox.</p>
+ *
+ * <p>The outbox is a sequence of segment files next to the given path, each named after the
+ * position in the outbox at which it starts. A new segment is started once the current one reaches
+ * the segment size, and, after a flush, whenever every event has been delivered. Segments whose
+ * events have all been delivered are deleted, so the outbox stays small under steady traffic,
+ * even if there are always some undelivered events.</p>
+ *
+ * <p>When the queue is full, for instance during an outage of the decorated service, new events
+ * are kept only in the outbox, and the background thread reads them back as the queue drains. The
+ * memory used is therefore bounded by the queue capacity, however long an outage lasts; only the
+ * outbox keeps growing.</p>
+ *
+ * <p>When the service is created, any events in the outbox after the checkpoint are queued again,
+ * so events that were accepted before a crash are not lost. As a result, delivery is
+ * at-least-once: a batch that was sent just before a crash may be sent again. If the decorated
+ * service fails, the batch is retried by the background thread, which waits twice as long after
+ * each consecutive failure, up to 64 flush intervals.</p>
+ *
+ * <p>Note: the outbox is written to the operating system on each call to {@link #emit}, which
+ * protects against a failure of the process, but it is not forced to the storage device.</p>
+ *
+ * @author acoburn
+ */
+public class AsyncEventService implements EventService, AutoCloseable {
+
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final String VALUE_SEPARATOR = " ";
+    private static final int FIELDS = 7;
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final long DEFAULT_SEGMENT_SIZE = 16L * 1024L * 1024L;
+    private static final int MAX_BACKOFF = 6;
+
+    private final EventService service;
+    private final Integer batchSize;
+    private final long flushInterval;
+    private final long segmentSize;
+    private final Path file;
+    private final Path checkpoint;
+    // the outbox segments, keyed by the outbox position at which they start
+    private final NavigableMap<Long, Path> segments = new TreeMap<>();
+    private final Object lock = new Object();
+    private final BlockingQueue<Entry> queue;
+    private final AtomicInteger undelivered = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final List<Entry> pending = new ArrayList<>();
+    private final ScheduledExecutorService scheduler;
+
+    // the current segment, which starts at the given outbox position
+    private FileChannel outbox;
+    private long base;
+    private long delivered;
+    // the outbox offset of the first event that is not in the queue, or -1 if every event is queued
+    private long spilled = -1L;
+    private int failures;
+    private long retryAt;
+
+    /**
+     * Create an asynchronous event service, which holds at most 8192 events in memory
+     * @param service the event service to decorate
+     * @param outbox the path of the outbox, which names its segment files
+     * @param batchSize the maximum number of events sent in one batch
+     * @param flushInterval the maximum time an event waits before it is sent
+     */
+    public AsyncEventService(final EventService service, final String outbox, final Integer batchSize,
+            final Duration flushInterval) {
+        this(service, outbox, batchSize, flushInterval, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an asynchronous event service
+     * @param service the event service to decorate
+     * @param outbox the path of the outbox, which names its segment files
+     * @param batchSize the maximum number of events sent in one batch
+     * @param flushInterval the maximum time an event waits before it is sent
+     * @param capacity the maximum number of events queued in memory
+     */
+    public AsyncEventService(final EventService service, final String outbox, final Integer batchSize,
+            final Duration flushInterval, final Integer capacity) {
+        this(service, outbox, batchSize, flushInterval, capacity, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Create an asynchronous event service
+     * @param service the event service to decorate
+     * @param outbox the path of the outbox, which names its segment files
+     * @param batchSize the maximum number of events sent in one batch
+     * @param flushInterval the maximum time an event waits before it is sent
+     * @param capacity the maximum number of events queued in memory
+     * @param segmentSize the size, in bytes, after which a new outbox segment is started
+     */
+    public AsyncEventService(final EventService service, final String outbox, final Integer batchSize,
+            final Duration flushInterval, final Integer capacity, final Long segmentSize) {
+        requireNonNull(service);
+        requireNonNull(outbox);
+        if (batchSize < 1 || capacity < 1 || segmentSize < 1 || flushInterval.isNegative() ||
+                flushInterval.isZero()) {
+            throw new IllegalArgumentException(
+                    "The batch size, the capacity, the segment size and the flush interval must be positive");
+        }
+        this.service = service;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval.toMillis();
+        this.segmentSize = segmentSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.file = Paths.get(outbox).toAbsolutePath();
+        this.checkpoint = file.resolveSibling(file.getFileName() + ".checkpoint");
+        try {
+            createDirectories(file.getParent());
+            recover();
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error opening event outbox " + outbox, ex);
+        }
+        this.scheduler = newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "trellis-event-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::scheduledFlush, flushInterval.toMillis(), flushInterval.toMillis(),
+                MILLISECONDS);
+    }
+
+    @Override
+    public void emit(final Event event) {
+        final ByteBuffer line = ByteBuffer.wrap(encode(event).getBytes(UTF_8));
+        synchronized (lock) {
+            try {
+                if (outbox.position() >= segmentSize) {
+                    rotate();
+                }
+                final long start = base + outbox.position();
+                while (line.hasRemaining()) {
+                    outbox.write(line);
+                }
+                // once an event is spilled, later events must follow it so that the order is kept
+                if (spilled < 0L && !queue.offer(new Entry(event, base + outbox.position()))) {
+                    spilled = start;
+                }
+            } catch (final IOException ex) {
+                throw new RuntimeRepositoryException("Error writing to event outbox", ex);
+            }
+        }
+        if (undelivered.incrementAndGet() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::scheduledFlush);
+        }
+    }
+
+    @Override
+    public void emitAll(final Collection<? extends Event> events) {
+        events.forEach(this::emit);
+    }
+
+    /**
+     * Send all queued events to the decorated service
+     *
+     * <p>This is normally called on the background thread, but it may be called directly, for
+     * example before a planned shutdown.</p>
+     */
+    public synchronized void flush() {
+        flushScheduled.set(false);
+        while (true) {
+            Entry entry;
+            while (pending.size() < batchSize && (entry = queue.poll()) != null) {
+                pending.add(entry);
+            }
+            if (pending.isEmpty() && !refill()) {
+                break;
+            }
+            if (pending.isEmpty()) {
+                continue;
+            }
+            service.emitAll(pending.stream().map(e -> e.event).collect(toList()));
+            writeCheckpoint(pending.get(pending.size() - 1).offset);
+            undelivered.addAndGet(-pending.size());
+            pending.clear();
+        }
+        compact();
+    }
+
+    /**
+     * Get the number of events that have been accepted but not yet delivered
+     * @return the number of events
+     */
+    public Integer getPendingCount() {
+        return undelivered.get();
+    }
+
+    /**
+     * Stop the background thread and send any remaining events
+     *
+     * <p>If the remaining events cannot be sent, they stay in the outbox and are sent by the
+     * next service that uses it.</p>
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1L, MINUTES);
+            tryFlush();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (lock) {
+                try {
+                    outbox.close();
+                } catch (final IOException ex) {
+                    throw new RuntimeRepositoryException("Error closing event outbox", ex);
+                }
+            }
+        }
+    }
+
+    private void scheduledFlush() {
+        // runs only on the background thread, so the retry state needs no synchronization
+        if (failures > 0 && System.nanoTime() - retryAt < 0L) {
+            flushScheduled.set(false);
+            return;
+        }
+        if (tryFlush()) {
+            failures = 0;
+        } else {
+            failures += 1;
+            retryAt = System.nanoTime() + MILLISECONDS.toNanos(flushInterval << Math.min(failures, MAX_BACKOFF));
+        }
+    }
+
+    private boolean tryFlush() {
+        try {
+            flush();
+            return true;
+        } catch (final RuntimeException ex) {
+            // the pending events are retried on a later flush
+            return false;
+        }
+    }
+
+    /**
+     * Move spilled events from the outbox back into the queue
+     * @return true if any events were queued
+     */
+    private boolean refill() {
+        synchronized (lock) {
+            if (spilled < 0L) {
+                return false;
+            }
+            try {
+                final long end = base + outbox.size();
+                long offset = spilled;
+                boolean queued = false;
+                boolean full = false;
+                // an event never spans two segments, as segments only change between events
+                while (!full && offset < end) {
+                    final Map.Entry<Long, Path> segment = segments.floorEntry(offset);
+                    final Long next = segments.higherKey(segment.getKey());
+                    final long limit = next == null ? end : next;
+                    try (final FileChannel channel = FileChannel.open(segment.getValue(), READ)) {
+                        channel.position(offset - segment.getKey());
+                        final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                                    Channels.newInputStream(channel), UTF_8));
+                        String line;
+                        while (offset < limit && (line = reader.readLine()) != null) {
+                            final long lineEnd = offset + line.getBytes(UTF_8).length + 1L;
+                            final Optional<Event> event = decode(line);
+                            if (event.isPresent()) {
+                                if (!queue.offer(new Entry(event.get(), lineEnd))) {
+                                    full = true;
+                                    break;
+                                }
+                                queued = true;
+                            }
+                            offset = lineEnd;
+                        }
+                    }
+                    if (!full && offset < limit) {
+                        // skip anything unreadable at the end of a segment
+                        offset = limit;
+                    }
+                }
+                spilled = offset < end ? offset : -1L;
+                return queued;
+            } catch (final IOException ex) {
+                throw new RuntimeRepositoryException("Error reading event outbox", ex);
+            }
+        }
+    }
+
+    private void compact() {
+        synchronized (lock) {
+            try {
+                if (outbox.size() > 0L && queue.isEmpty() && spilled < 0L && delivered == base + outbox.size()) {
+                    rotate();
+                }
+                deleteDelivered();
+            } catch (final IOException ex) {
+                throw new RuntimeRepositoryException("Error compacting event outbox", ex);
+            }
+        }
+    }
+
+    private void rotate() throws IOException {
+        final long start = base + outbox.size();
+        final Path segment = segment(start);
+        final FileChannel channel = FileChannel.open(segment, CREATE, READ, WRITE);
+        segments.put(start, segment);
+        outbox.close();
+        outbox = channel;
+        base = start;
+    }
+
+    private void deleteDelivered() throws IOException {
+        while (segments.size() > 1) {
+            final Map.Entry<Long, Path> first = segments.firstEntry();
+            if (segments.higherKey(first.getKey()) > delivered) {
+                return;
+            }
+            deleteIfExists(first.getValue());
+            segments.remove(first.getKey());
+        }
+    }
+
+    private Path segment(final long start) {
+        return file.resolveSibling(file.getFileName() + "." + String.format("%020d", start));
+    }
+
+    private void recover() throws IOException {
+        final String prefix = file.getFileName() + ".";
+        try (final Stream<Path> files = list(file.getParent())) {
+            files.forEach(path -> {
+                final String name = path.getFileName().toString();
+                if (name.startsWith(prefix) && name.substring(prefix.length()).matches("[0-9]{20}")) {
+                    segments.put(Long.parseLong(name.substring(prefix.length())), path);
+                }
+            });
+        }
+        delivered = exists(checkpoint) ? Long.parseLong(new String(readAllBytes(checkpoint), UTF_8).trim()) : 0L;
+        if (segments.isEmpty()) {
+            segments.put(delivered, segment(delivered));
+        }
+        base = segments.lastKey();
+        outbox = FileChannel.open(segments.lastEntry().getValue(), CREATE, READ, WRITE);
+        final long size = outbox.size();
+        if (delivered > base + size || delivered < segments.firstKey()) {
+            // the outbox was removed or replaced after the checkpoint was written
+            writeCheckpoint(segments.firstKey());
+        }
+
+        long offset = delivered;
+        for (final Map.Entry<Long, Path> segment : segments.tailMap(segments.floorKey(delivered), true).entrySet()) {
+            final boolean current = segment.getKey() == base;
+            final long limit = current ? base + size : segments.higherKey(segment.getKey());
+            offset = Math.max(offset, segment.getKey());
+            try (final FileChannel channel = FileChannel.open(segment.getValue(), READ)) {
+                channel.position(offset - segment.getKey());
+                final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                            Channels.newInputStream(channel), UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final long end = offset + line.getBytes(UTF_8).length + 1L;
+                    if (end > limit) {
+                        if (current) {
+                            // drop an incomplete event that was being written when the process stopped
+                            outbox.truncate(offset - base);
+                        }
+                        break;
+                    }
+                    if (decode(line).isPresent()) {
+                        undelivered.incrementAndGet();
+                    }
+                    offset = end;
+                }
+            }
+        }
+        outbox.position(outbox.size());
+        deleteDelivered();
+        // the events are queued again through the same path as spilled events
+        if (delivered < base + outbox.size()) {
+            spilled = delivered;
+            refill();
+        }
+    }
+
+    private void writeCheckpoint(final long offset) {
+        final Path tmp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try {
+            write(tmp, Long.toString(offset).getBytes(UTF_8));
+            move(tmp, checkpoint, ATOMIC_MOVE, REPLACE_EXISTING);
+            delivered = offset;
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error writing event outbox checkpoint", ex);
+        }
+    }
+
+    private static String encode(final Event event) {
+        return event.getIdentifier().getIRIString() + FIELD_SEPARATOR +
+            join(event.getAgents()) + FIELD_SEPARATOR +
+            event.getTarget().map(IRI::getIRIString).orElse("") + FIELD_SEPARATOR +
+            join(event.getTypes()) + FIELD_SEPARATOR +
+            join(event.getTargetTypes()) + FIELD_SEPARATOR +
+            event.getCreated() + FIELD_SEPARATOR +
+            event.getInbox().map(IRI::getIRIString).orElse("") + "\n";
+    }
+
+    private static Optional<Event> decode(final String line) {
+        final String[] fields = line.split(FIELD_SEPARATOR, -1);
+        if (fields.length != FIELDS || fields[0].isEmpty()) {
+            return empty();
+        }
+        try {
+            return of(new OutboxEvent(getInstance().createIRI(fields[0]), split(fields[1]), optional(fields[2]),
+                        split(fields[3]), split(fields[4]), Instant.parse(fields[5]), optional(fields[6])));
+        } catch (final IllegalArgumentException | DateTimeParseException ex) {
+            return empty();
+        }
+    }
+
+    private static String join(final Collection<IRI> iris) {
+        return iris.stream().map(IRI::getIRIString).collect(joining(VALUE_SEPARATOR));
+    }
+
+    private static List<IRI> split(final String value) {
+        if (value.isEmpty()) {
+            return emptyList();
+        }
+        return unmodifiableList(asList(value.split(VALUE_SEPARATOR)).stream().map(getInstance()::createIRI)
+                .collect(toList()));
+    }
+
+    private static Optional<IRI> optional(final String value) {
+        return value.isEmpty() ? empty() : of(getInstance().createIRI(value));
+    }
+
+    private static final class Entry {
+        private final Event event;
+        private final long offset;
+
+        private Entry(final Event event, final long offset) {
+            this.event = event;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * An event recovered from the outbox.
+     */
+    private static final class OutboxEvent implements Event {
+        private final IRI identifier;
+        private final Collection<IRI> agents;
+        private final Optional<IRI> target;
+        private final Collection<IRI> types;
+        private final Collection<IRI> targetTypes;
+        private final Instant created;
+        private final Optional<IRI> inbox;
+
+        private OutboxEvent(final IRI identifier, final Collection<IRI> agents, final Optional<IRI> target,
+                final Collection<IRI> types, final Collection<IRI> targetTypes, final Instant created,
+                final Optional<IRI> inbox) {
+            this.identifier = identifier;
+            this.agents = agents;
+            this.target = target;
+            this.types = types;
+            this.targetTypes = targetTypes;
+            this.created = created;
+            this.inbox = inbox;
+        }
+
+        @Override
+        public IRI getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public Collection<IRI> getAgents() {
+            return agents;
+        }
+
+        @Override
+        public Optional<IRI> getTarget() {
+            return target;
+        }
+
+        @Override
+        public Collection<IRI> getTypes() {
+            return types;
+        }
+
+        @Override
+        public Collection<IRI> getTargetTypes() {
+            return targetTypes;
+        }
+
+        @Override
+        public Instant getCreated() {
+            return created;
+        }
+
+        @Override
+        public Optional<IRI> getInbox() {
+            return inbox;
+        }
+    }
+}
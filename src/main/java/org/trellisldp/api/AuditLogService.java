@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+
+/**
+ * A store for audit quads that is kept apart from the resource data.
+ *
+ * <p>Rather than adding the output of an {@link AuditService} to the dataset passed to
+ * {@link ResourceService#put}, an implementation may append it here, so that the audit history of a
+ * resource does not grow its dataset or need to be read each time the resource is streamed.</p>
+ *
+ * @author acoburn
+ */
+public interface AuditLogService {
+
+    /**
+     * Append audit quads for a resource
+     * @param identifier the resource identifier
+     * @param time the time of the audited operation
+     * @param quads the audit quads
+     */
+    void append(IRI identifier, Instant time, Collection<Quad> quads);
+
+    /**
+     * Read the audit quads for a resource in a time range
+     * @param identifier the resource identifier
+     * @param from the start of the range, inclusive
+     * @param until the end of the range, exclusive
+     * @return a stream of quads, in the order they were appended
+     */
+    Stream<Quad> read(IRI identifier, Instant from, Instant until);
+
+    /**
+     * Read the audit quads for all resources in a time range
+     * @param from the start of the range, inclusive
+     * @param until the end of the range, exclusive
+     * @return a stream of quads, in the order they were appended
+     */
+    Stream<Quad> read(Instant from, Instant until);
+
+    /**
+     * Read all of the audit quads for a resource
+     * @param identifier the resource identifier
+     * @return a stream of quads, in the order they were appended
+     */
+    default Stream<Quad> read(final IRI identifier) {
+        return read(identifier, Instant.MIN, Instant.MAX);
+    }
+}
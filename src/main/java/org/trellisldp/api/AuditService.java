@@ -13,7 +13,9 @@
  */
 package org.trellisldp.api;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.Quad;
@@ -46,4 +48,37 @@ public interface AuditService {
      * @return the list of quads
      */
     List<Quad> update(IRI identifier, Session session);
+
+    /**
+     * Generate the audit quads for a Create event on each of several resources
+     *
+     * <p>This is intended for bulk operations, where many resources are created in a single session.</p>
+     *
+     * @param identifiers the resource identifiers
+     * @param session the session data
+     * @return a stream of quads
+     */
+    default Stream<Quad> creations(final Collection<IRI> identifiers, final Session session) {
+        return identifiers.stream().flatMap(identifier -> creation(identifier, session).stream());
+    }
+
+    /**
+     * Generate the audit quads for a Delete event on each of several resources
+     * @param identifiers the resource identifiers
+     * @param session the session data
+     * @return a stream of quads
+     */
+    default Stream<Quad> deletions(final Collection<IRI> identifiers, final Session session) {
+        return identifiers.stream().flatMap(identifier -> deletion(identifier, session).stream());
+    }
+
+    /**
+     * Generate the audit quads for an Update event on each of several resources
+     * @param identifiers the resource identifiers
+     * @param session the session data
+     * @return a stream of quads
+     */
+    default Stream<Quad> updates(final Collection<IRI> identifiers, final Session session) {
+        return identifiers.stream().flatMap(identifier -> update(identifier, session).stream());
+    }
 }
@@ -14,12 +14,22 @@
 package org.trellisldp.api;
 
 import static java.util.Collections.emptyMap;
+import static java.util.stream.Collectors.toSet;
+import static org.trellisldp.api.BoundedInputStream.checkRange;
+import static org.trellisldp.api.BoundedInputStream.range;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -106,6 +116,38 @@ public interface BinaryService {
          */
         Optional<InputStream> getContent(String partition, IRI identifier);
 
+        /**
+         * Get a range of the content of the binary object
+         *
+         * <p>Note: the default implementation reads and discards the bytes before the offset.
+         * Resolvers that support random access should override this method.</p>
+         *
+         * @param partition the partition to use
+         * @param identifier the identifier
+         * @param offset the zero-based position of the first byte
+         * @param length the maximum number of bytes
+         * @return the requested range of the binary object
+         */
+        default Optional<InputStream> getContent(String partition, IRI identifier, Long offset, Long length) {
+            checkRange(offset, length);
+            return getContent(partition, identifier).map(stream -> range(stream, offset, length));
+        }
+
+        /**
+         * Get the content of the binary object as a channel
+         *
+         * <p>Note: the default implementation adapts {@link #getContent(String, IRI)}. Resolvers
+         * backed by a file system should return a {@link java.nio.channels.FileChannel}, which
+         * callers may use to transfer the content without copying it through the heap.</p>
+         *
+         * @param partition the partition to use
+         * @param identifier the identifier
+         * @return a channel for reading the content of the binary object
+         */
+        default Optional<ReadableByteChannel> getChannel(String partition, IRI identifier) {
+            return getContent(partition, identifier).map(Channels::newChannel);
+        }
+
         /**
          * Check whether the binary object exists
          * @param partition the partition to use
@@ -133,6 +175,63 @@ public interface BinaryService {
          */
         void setContent(String partition, IRI identifier, InputStream stream, Map<String, String> metadata);
 
+        /**
+         * Set the content of the binary object and store its digests
+         *
+         * <p>The digest function reads the content; it returns the digests that are stored with that
+         * content, so that a concurrent write cannot leave them attached to different content.
+         * Note: the default implementation stores the content, reads it back through the digest
+         * function and then calls {@link #setDigests}. Resolvers that store digests should override
+         * this method so that the content is read only once.</p>
+         *
+         * @param partition the partition to use
+         * @param identifier the identifier
+         * @param stream the content
+         * @param metadata any user metadata
+         * @param digester computes the digest values of the content it reads
+         * @return the digest values, keyed by algorithm
+         */
+        default Map<String, String> setContent(String partition, IRI identifier, InputStream stream,
+                Map<String, String> metadata, Function<InputStream, Map<String, String>> digester) {
+            setContent(partition, identifier, stream, metadata);
+            final Map<String, String> digests = getContent(partition, identifier).map(content -> {
+                try (final InputStream input = content) {
+                    return digester.apply(input);
+                } catch (final IOException ex) {
+                    throw new RuntimeRepositoryException("Error closing content stream", ex);
+                }
+            }).orElseGet(Collections::emptyMap);
+            setDigests(partition, identifier, digests);
+            return digests;
+        }
+
+        /**
+         * Get the digests stored with the binary object
+         *
+         * <p>Note: the default implementation does not store digests, so it returns an empty map.</p>
+         *
+         * @param partition the partition to use
+         * @param identifier the identifier
+         * @return the stored digest values, keyed by algorithm
+         */
+        default Map<String, String> getDigests(String partition, IRI identifier) {
+            return emptyMap();
+        }
+
+        /**
+         * Store digests of the current content of the binary object
+         *
+         * <p>Stored digests must no longer be returned by {@link #getDigests} once the content is
+         * replaced or purged. Note: the default implementation discards the digests.</p>
+         *
+         * @param partition the partition to use
+         * @param identifier the identifier
+         * @param digests the digest values, keyed by algorithm
+         */
+        default void setDigests(String partition, IRI identifier, Map<String, String> digests) {
+            // digests are not stored by default
+        }
+
         /**
          * Remove the content from the datastore
          * @param partition the partition to use
@@ -203,6 +302,19 @@ public interface BinaryService {
         return getResolver(identifier).flatMap(resolver -> resolver.getContent(partition, identifier));
     }
 
+    /**
+     * Get a range of the content of the binary object
+     * @param partition the partition to use
+     * @param identifier an identifier used for locating the binary object
+     * @param offset the zero-based position of the first byte
+     * @param length the maximum number of bytes
+     * @return the requested range of the content
+     */
+    default Optional<InputStream> getContent(String partition, IRI identifier, Long offset, Long length) {
+        return getResolver(identifier).flatMap(resolver -> resolver.getContent(partition, identifier, offset,
+                    length));
+    }
+
     /**
      * Test whether a binary object exists at the given URI
      * @param partition the partition to use
@@ -234,6 +346,28 @@ public interface BinaryService {
         getResolver(identifier).ifPresent(resolver -> resolver.setContent(partition, identifier, stream, metadata));
     }
 
+    /**
+     * Set the content for a binary object, computing digests of the content as it is written
+     *
+     * <p>The digests are computed with {@link #digestAll} and are stored by the resolver along with
+     * the content, so that {@link #calculateDigest} and {@link #calculateDigests} need not read the
+     * content again. Resolvers that override
+     * {@link Resolver#setContent(String, IRI, InputStream, Map, Function)} compute them in the same
+     * pass that writes the content.</p>
+     *
+     * @param partition the partition to use
+     * @param identifier the binary object identifier
+     * @param stream the content
+     * @param metadata any user metadata
+     * @param algorithms the digest algorithms to compute
+     * @return the digest values, keyed by algorithm; unsupported algorithms are omitted
+     */
+    default Map<String, String> setContent(String partition, IRI identifier, InputStream stream,
+            Map<String, String> metadata, Set<String> algorithms) {
+        return getResolver(identifier).map(resolver -> resolver.setContent(partition, identifier, stream, metadata,
+                    input -> digestAll(algorithms, input))).orElseGet(Collections::emptyMap);
+    }
+
     /**
      * Purge the content from its corresponding datastore
      * @param partition the partition to use
@@ -251,13 +385,65 @@ public interface BinaryService {
      * @return the digest
      *
      * <p>Note: as per RFC 3230, the digest value is calculated over the entire resource,
-     * not just the HTTP payload.</p>
+     * not just the HTTP payload. A digest stored by the resolver is used if one exists.</p>
      *
      */
     default Optional<String> calculateDigest(String partition, IRI identifier, String algorithm) {
+        final Optional<String> stored = getResolver(identifier).flatMap(resolver ->
+                resolver.getDigests(partition, identifier).entrySet().stream()
+                    .filter(e -> e.getKey().equalsIgnoreCase(algorithm)).map(Map.Entry::getValue).findFirst());
+        if (stored.isPresent()) {
+            return stored;
+        }
         return getContent(partition, identifier).flatMap(stream -> digest(algorithm, stream));
     }
 
+    /**
+     * Calculate several digests for a binary object, reading its content only once
+     *
+     * <p>Digests stored by the resolver are used where they exist, and the content is only read if
+     * any of the requested digests is not stored.</p>
+     *
+     * @param partition the partition to use
+     * @param identifier the identifier
+     * @param algorithms the algorithms
+     * @return the digest values, keyed by algorithm; unsupported algorithms are omitted
+     */
+    default Map<String, String> calculateDigests(String partition, IRI identifier, Set<String> algorithms) {
+        final Map<String, String> stored = getResolver(identifier)
+            .map(resolver -> resolver.getDigests(partition, identifier)).orElseGet(Collections::emptyMap);
+        final Map<String, String> digests = new HashMap<>();
+        final Set<String> missing = new HashSet<>();
+        for (final String algorithm : algorithms) {
+            final Optional<String> value = stored.entrySet().stream()
+                .filter(e -> e.getKey().equalsIgnoreCase(algorithm)).map(Map.Entry::getValue).findFirst();
+            if (value.isPresent() && isSupported(algorithm)) {
+                digests.put(algorithm, value.get());
+            } else {
+                missing.add(algorithm);
+            }
+        }
+        if (!missing.isEmpty()) {
+            getContent(partition, identifier).ifPresent(stream -> {
+                try (final InputStream input = stream) {
+                    digests.putAll(digestAll(missing, input));
+                } catch (final IOException ex) {
+                    throw new RuntimeRepositoryException("Error closing content stream", ex);
+                }
+            });
+        }
+        return digests;
+    }
+
+    /**
+     * Test whether a digest algorithm is supported
+     * @param algorithm the algorithm
+     * @return true if the algorithm is one of the supported algorithms, ignoring case; false otherwise
+     */
+    default Boolean isSupported(String algorithm) {
+        return supportedAlgorithms().stream().anyMatch(algorithm::equalsIgnoreCase);
+    }
+
     /**
      * Get a list of supported algorithms
      * @return the supported digest algorithms
@@ -289,6 +475,21 @@ public interface BinaryService {
      */
     Optional<String> digest(String algorithm, InputStream stream);
 
+    /**
+     * Get several digests for an input stream in a single pass
+     *
+     * <p>Note: the default implementation computes base64-encoded digests with {@link DigestUtils}.
+     * Implementations that use a different encoding for any algorithm should override this method.</p>
+     *
+     * @param algorithms the algorithms to use
+     * @param stream the input stream
+     * @return the digest values, keyed by algorithm; unsupported algorithms are omitted
+     */
+    default Map<String, String> digestAll(Set<String> algorithms, InputStream stream) {
+        return DigestUtils.digest(algorithms.stream().filter(algorithm -> isSupported(algorithm)).collect(toSet()),
+                stream);
+    }
+
     /**
      * An identifier supplier
      * @param partition the partition to use
@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream that exposes a byte range of another stream.
+ *
+ * @author acoburn
+ */
+final class BoundedInputStream extends FilterInputStream {
+
+    private long remaining;
+
+    private BoundedInputStream(final InputStream stream, final long length) {
+        super(stream);
+        this.remaining = length;
+    }
+
+    /**
+     * Check that a byte range is valid
+     * @param offset the number of bytes to skip
+     * @param length the maximum number of bytes to read after the offset
+     * @throws IllegalArgumentException if the offset or the length is negative
+     */
+    static void checkRange(final Long offset, final Long length) {
+        if (offset < 0L || length < 0L) {
+            throw new IllegalArgumentException("Invalid byte range: offset " + offset + ", length " + length);
+        }
+    }
+
+    /**
+     * Expose a range of bytes from an input stream
+     *
+     * <p>Note: bytes before the offset are read and discarded. If the range is invalid or the bytes
+     * cannot be skipped, the input stream is closed.</p>
+     *
+     * @param stream the input stream
+     * @param offset the number of bytes to skip
+     * @param length the maximum number of bytes to read after the offset
+     * @return an input stream for the requested range
+     */
+    static InputStream range(final InputStream stream, final Long offset, final Long length) {
+        try {
+            checkRange(offset, length);
+            long skipped = 0L;
+            while (skipped < offset) {
+                final long count = stream.skip(offset - skipped);
+                if (count > 0L) {
+                    skipped += count;
+                } else if (stream.read() < 0) {
+                    break;
+                } else {
+                    skipped += 1L;
+                }
+            }
+        } catch (final IOException ex) {
+            closeQuietly(stream, ex);
+            throw new RuntimeRepositoryException("Error skipping to offset " + offset, ex);
+        } catch (final RuntimeException ex) {
+            closeQuietly(stream, ex);
+            throw ex;
+        }
+        return new BoundedInputStream(stream, length);
+    }
+
+    private static void closeQuietly(final InputStream stream, final Exception cause) {
+        try {
+            stream.close();
+        } catch (final IOException ex) {
+            cause.addSuppressed(ex);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0L) {
+            return -1;
+        }
+        final int b = super.read();
+        if (b >= 0) {
+            remaining -= 1L;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (remaining <= 0L) {
+            return -1;
+        }
+        final int count = super.read(b, off, (int) Math.min(len, remaining));
+        if (count > 0) {
+            remaining -= count;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final long count = super.skip(Math.min(n, remaining));
+        remaining -= count;
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(super.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
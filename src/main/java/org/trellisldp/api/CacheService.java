@@ -29,4 +29,29 @@ public interface CacheService<K, V> {
      * @return a value for that key or null
      */
     V get(K key, Function<? super K, ? extends V> mappingFunction);
+
+    /**
+     * Get a value from the cache without computing it
+     *
+     * <p>This does not wait for a value that is still being computed. The default implementation
+     * never finds a value.</p>
+     *
+     * @param key the key
+     * @return the cached value for that key or null
+     */
+    default V getIfPresent(final K key) {
+        return null;
+    }
+
+    /**
+     * Store a value in the cache, replacing any value for the key
+     *
+     * <p>The default implementation does not store the value.</p>
+     *
+     * @param key the key
+     * @param value the value
+     */
+    default void put(final K key, final V value) {
+        // a cache that cannot store values is allowed to discard them
+    }
 }
@@ -0,0 +1,257 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * An {@link AccessControlService} decorator that caches access modes.
+ *
+ * <p>For each resource, this finds the nearest resource in its container hierarchy for which
+ * {@link Resource#hasAcl} is true, and remembers the path to it. Access modes are then cached by
+ * that ACL resource, by whether the ACL is inherited, by the agent and by the delegating user, so
+ * all of the resources that inherit the same ACL share one cached result. The modification date
+ * of the ACL resource is part of the cache key, so changes to an ACL take effect as soon as the
+ * {@link ResourceService} reports them. The remembered path is checked again with
+ * {@link Resource#hasAcl} on every call, so an ACL that is added to an intermediate container, or
+ * removed from the ACL resource, takes effect immediately as well; {@link #invalidateAll} covers any
+ * other changes. Every cached value also expires after a fixed time.</p>
+ *
+ * <p>Note: this assumes that, as in WebAC, the access modes of a resource depend only on its
+ * effective ACL and the session. Since the resources on the path to the ACL resource are read on
+ * each call, this should be combined with a cached {@link ResourceService}, such as
+ * {@link CachingResourceService}.</p>
+ *
+ * @author acoburn
+ */
+public class CachingAccessControlService implements AccessControlService {
+
+    private final AccessControlService service;
+    private final ResourceService resourceService;
+    private final MutableCacheService<IRI, List<IRI>> aclPaths;
+    private final MutableCacheService<Key, Set<IRI>> accessModes;
+
+    /**
+     * Create a caching access control service
+     * @param service the access control service to decorate
+     * @param resourceService the resource service
+     * @param maximumSize the maximum number of resources and of access mode sets to cache
+     * @param expireAfterWrite how long cached values remain valid
+     */
+    public CachingAccessControlService(final AccessControlService service, final ResourceService resourceService,
+            final Integer maximumSize, final Duration expireAfterWrite) {
+        requireNonNull(service);
+        requireNonNull(resourceService);
+        requireNonNull(expireAfterWrite, "Cached access modes must expire");
+        this.service = service;
+        this.resourceService = resourceService;
+        this.aclPaths = new LruCacheService<>(maximumSize, expireAfterWrite, null);
+        this.accessModes = new LruCacheService<>(maximumSize, expireAfterWrite, null);
+    }
+
+    @Override
+    public Set<IRI> getAccessModes(final IRI identifier, final Session session) {
+        final Map<IRI, Optional<Resource>> resources = new HashMap<>();
+        final IRI acl = getAclResource(identifier, resources, new HashMap<>());
+        if (acl == null) {
+            return service.getAccessModes(identifier, session);
+        }
+        return getAccessModes(identifier, acl, getResource(acl, resources).map(Resource::getModified), session);
+    }
+
+    /**
+     * Get the allowable access modes for the given session to each of the specified resources
+     *
+     * <p>The resources are read with a single {@link ResourceService#getAll} call, and the
+     * container hierarchy is walked only once for all of the resources that share a container.
+     * The resources are then grouped by their effective ACL, and the decorated service is
+     * consulted at most once for each group.</p>
+     *
+     * @param identifiers the resource identifiers
+     * @param session the agent's session
+     * @return the allowable access modes, keyed by resource identifier
+     */
+    @Override
+    public Map<IRI, Set<IRI>> getAllAccessModes(final Collection<IRI> identifiers, final Session session) {
+        final Map<IRI, Optional<Resource>> resources = new HashMap<>();
+        resourceService.getAll(identifiers).forEach(resource ->
+                resources.put(resource.getIdentifier(), of(resource)));
+
+        final Map<IRI, List<IRI>> index = new HashMap<>();
+        final Map<IRI, Set<IRI>> modes = new HashMap<>();
+        for (final IRI identifier : identifiers) {
+            final IRI acl = getAclResource(identifier, resources, index);
+            if (acl == null) {
+                modes.put(identifier, service.getAccessModes(identifier, session));
+            } else {
+                modes.put(identifier, getAccessModes(identifier, acl, getResource(acl, resources)
+                            .map(Resource::getModified), session));
+            }
+        }
+        return modes;
+    }
+
+    /**
+     * Discard all cached access modes and ACL paths
+     *
+     * <p>This should be called when an ACL is changed in a way that is reflected neither in the
+     * modification date of its resource nor in {@link Resource#hasAcl}. The effective ACL of every
+     * resource is then found again.</p>
+     */
+    public void invalidateAll() {
+        aclPaths.invalidateAll();
+        accessModes.invalidateAll();
+    }
+
+    /**
+     * Find the resource whose ACL applies to the given resource
+     * @param identifier the resource identifier
+     * @return the resource with the effective ACL, or null if there is none
+     */
+    protected IRI findAclResource(final IRI identifier) {
+        final List<IRI> path = findAclPath(identifier, new HashMap<>(), new HashMap<>());
+        return path == null ? null : path.get(path.size() - 1);
+    }
+
+    private IRI getAclResource(final IRI identifier, final Map<IRI, Optional<Resource>> resources,
+            final Map<IRI, List<IRI>> index) {
+        final List<IRI> cached = aclPaths.get(identifier, id -> findAclPath(id, resources, index));
+        if (cached == null) {
+            return null;
+        }
+        if (isCurrent(cached, resources)) {
+            return cached.get(cached.size() - 1);
+        }
+        aclPaths.invalidate(identifier);
+        // the walk is repeated with a fresh index, since the shared one may hold the outdated path
+        final List<IRI> path = aclPaths.get(identifier, id -> findAclPath(id, resources, new HashMap<>()));
+        return path == null ? null : path.get(path.size() - 1);
+    }
+
+    /**
+     * Find the path from a resource to the nearest resource with an ACL
+     * @return the path, ending with the resource that has the ACL, or null if there is none
+     */
+    private List<IRI> findAclPath(final IRI identifier, final Map<IRI, Optional<Resource>> resources,
+            final Map<IRI, List<IRI>> index) {
+        final List<IRI> walked = new ArrayList<>();
+        List<IRI> found = null;
+        Optional<IRI> current = of(identifier);
+        while (current.isPresent()) {
+            final IRI id = current.get();
+            if (index.containsKey(id)) {
+                final List<IRI> rest = index.get(id);
+                if (rest != null) {
+                    found = new ArrayList<>(walked);
+                    found.addAll(rest);
+                }
+                break;
+            }
+            walked.add(id);
+            if (hasAcl(id, resources)) {
+                found = walked;
+                break;
+            }
+            current = resourceService.getContainer(id);
+        }
+        final List<IRI> path = found == null ? null : unmodifiableList(new ArrayList<>(found));
+        for (int i = 0; i < walked.size(); ++i) {
+            index.put(walked.get(i), path == null ? null : path.subList(i, path.size()));
+        }
+        return path;
+    }
+
+    private boolean isCurrent(final List<IRI> path, final Map<IRI, Optional<Resource>> resources) {
+        final int last = path.size() - 1;
+        for (int i = 0; i < last; ++i) {
+            if (hasAcl(path.get(i), resources)) {
+                return false;
+            }
+        }
+        return hasAcl(path.get(last), resources);
+    }
+
+    private boolean hasAcl(final IRI identifier, final Map<IRI, Optional<Resource>> resources) {
+        return getResource(identifier, resources).map(Resource::hasAcl).orElse(false);
+    }
+
+    private Set<IRI> getAccessModes(final IRI identifier, final IRI acl, final Optional<Instant> modified,
+            final Session session) {
+        if (!modified.isPresent()) {
+            aclPaths.invalidate(identifier);
+            return service.getAccessModes(identifier, session);
+        }
+        final Key key = new Key(acl, !acl.equals(identifier), session, modified.get());
+        return accessModes.get(key, k -> unmodifiableSet(new HashSet<>(service.getAccessModes(identifier,
+                            session))));
+    }
+
+    private Optional<Resource> getResource(final IRI identifier, final Map<IRI, Optional<Resource>> resources) {
+        return resources.computeIfAbsent(identifier, resourceService::get);
+    }
+
+    private static final class Key {
+        private final IRI acl;
+        private final boolean inherited;
+        private final IRI agent;
+        private final IRI delegatedBy;
+        private final Instant modified;
+        private final int hash;
+
+        private Key(final IRI acl, final boolean inherited, final Session session, final Instant modified) {
+            this.acl = acl;
+            this.inherited = inherited;
+            this.agent = session.getAgent();
+            this.delegatedBy = session.getDelegatedBy().orElse(null);
+            this.modified = modified;
+            this.hash = Objects.hash(acl, inherited, agent, delegatedBy, modified);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return inherited == other.inherited && acl.equals(other.acl) && Objects.equals(agent, other.agent)
+                && Objects.equals(delegatedBy, other.delegatedBy) && modified.equals(other.modified);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.of;
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.stream.Stream.concat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * A {@link ResourceService} decorator that caches the current state of resources.
+ *
+ * <p>Results of {@link #get(IRI)}, {@link #getAsync(IRI)} and {@link #getAll} are held in the supplied
+ * {@link MutableCacheService}, which must not store null values. The asynchronous and batched lookups answer
+ * what they can from the cache and pass the remaining identifiers to the same method of the decorated
+ * service, so that its non-blocking or batched implementation is still used. They never wait for a value
+ * that another caller is still loading. Whenever a resource is
+ * modified through {@link #put}, {@link #purge} or {@link #compact}, the cached values for that
+ * resource and for its container are discarded, since the containment triples of the container
+ * change along with its children. Historic versions and missing resources are not cached.</p>
+ *
+ * <p>Note: only modifications made through this decorator are detected. If several nodes write to the
+ * same backend, the cache should also be configured to expire values.</p>
+ *
+ * @author acoburn
+ */
+public class CachingResourceService implements ResourceService {
+
+    private final ResourceService service;
+    private final MutableCacheService<IRI, Resource> cache;
+
+    /**
+     * Create a caching resource service
+     * @param service the resource service to decorate
+     * @param cache the cache for resources
+     */
+    public CachingResourceService(final ResourceService service, final MutableCacheService<IRI, Resource> cache) {
+        requireNonNull(service);
+        requireNonNull(cache);
+        this.service = service;
+        this.cache = cache;
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier) {
+        return ofNullable(cache.get(identifier, id -> service.get(id).orElse(null)));
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier, final Instant time) {
+        return service.get(identifier, time);
+    }
+
+    @Override
+    public CompletableFuture<Optional<Resource>> getAsync(final IRI identifier) {
+        final Resource cached = cache.getIfPresent(identifier);
+        if (cached != null) {
+            return completedFuture(of(cached));
+        }
+        return service.getAsync(identifier).thenApply(resource -> {
+            resource.ifPresent(r -> cache.put(identifier, r));
+            return resource;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Optional<Resource>> getAsync(final IRI identifier, final Instant time) {
+        return service.getAsync(identifier, time);
+    }
+
+    @Override
+    public Stream<Resource> getAll(final Collection<IRI> identifiers) {
+        final List<Resource> cached = new ArrayList<>();
+        final List<IRI> missing = new ArrayList<>();
+        for (final IRI identifier : identifiers) {
+            final Resource resource = cache.getIfPresent(identifier);
+            if (resource != null) {
+                cached.add(resource);
+            } else {
+                missing.add(identifier);
+            }
+        }
+        if (missing.isEmpty()) {
+            return cached.stream();
+        }
+        return concat(cached.stream(), service.getAll(missing)
+                .peek(resource -> cache.put(resource.getIdentifier(), resource)));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> put(final IRI identifier, final IRI ixnModel, final Dataset dataset) {
+        invalidate(identifier);
+        return service.put(identifier, ixnModel, dataset).whenComplete((result, err) -> invalidate(identifier));
+    }
+
+    @Override
+    public Optional<IRI> getContainer(final IRI identifier) {
+        return service.getContainer(identifier);
+    }
+
+    @Override
+    public Stream<IRI> compact(final IRI identifier, final Instant from, final Instant until) {
+        try {
+            return service.compact(identifier, from, until);
+        } finally {
+            invalidate(identifier);
+        }
+    }
+
+    @Override
+    public Stream<IRI> purge(final IRI identifier) {
+        try {
+            return service.purge(identifier);
+        } finally {
+            invalidate(identifier);
+        }
+    }
+
+    @Override
+    public Stream<? extends Triple> scan(final String partition) {
+        return service.scan(partition);
+    }
+
+    @Override
+    public ScanPage scan(final String partition, final String cursor, final Integer size) {
+        return service.scan(partition, cursor, size);
+    }
+
+    @Override
+    public Stream<? extends Triple> scanSegment(final String partition, final Integer segment,
+            final Integer segments) {
+        return service.scanSegment(partition, segment, segments);
+    }
+
+    @Override
+    public RDFTerm skolemize(final RDFTerm term) {
+        return service.skolemize(term);
+    }
+
+    @Override
+    public RDFTerm unskolemize(final RDFTerm term) {
+        return service.unskolemize(term);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toInternal(final T term, final String baseUrl) {
+        return service.toInternal(term, baseUrl);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toExternal(final T term, final String baseUrl) {
+        return service.toExternal(term, baseUrl);
+    }
+
+    @Override
+    public Stream<? extends Quad> export(final String partition, final Collection<IRI> graphNames) {
+        return service.export(partition, graphNames);
+    }
+
+    @Override
+    public Supplier<String> getIdentifierSupplier() {
+        return service.getIdentifierSupplier();
+    }
+
+    /**
+     * Discard any cached state for a resource and its container
+     *
+     * <p>This may be used to propagate modifications that were not made through this decorator.</p>
+     *
+     * @param identifier the resource identifier
+     */
+    public void invalidate(final IRI identifier) {
+        cache.invalidate(identifier);
+        service.getContainer(identifier).ifPresent(cache::invalidate);
+    }
+}
@@ -0,0 +1,498 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.list;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newBufferedReader;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Base64.getUrlDecoder;
+import static java.util.Base64.getUrlEncoder;
+import static java.util.Collections.singleton;
+import static java.util.Objects.requireNonNull;
+import static java.util.UUID.randomUUID;
+import static org.trellisldp.api.DigestUtils.digesting;
+import static org.trellisldp.api.DigestUtils.getMessageDigest;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A {@link BinaryService.Resolver} decorator that stores each distinct content only once.
+ *
+ * <p>Content is written once, directly to the delegate resolver, under a new IRI with the given
+ * prefix, such as {@code file:cas/<uuid>}, while its digest is computed. If another identifier in
+ * the partition already refers to content with the same digest, the new copy is removed again and
+ * the identifier refers to the existing copy instead, so each distinct content is kept only once.
+ * The stored bytes are removed once the last identifier that refers to them is purged or replaced.
+ * Updates to the reference count of a digest are serialized by a lock for that digest alone, so a
+ * concurrent write of the same content cannot race with its removal, while writes of other content
+ * proceed in parallel.</p>
+ *
+ * <p>The mapping from identifiers to digests and stored copies is recorded in an append-only
+ * journal for each partition, kept in the given index directory, and the reference counts are
+ * rebuilt from it when the resolver is created. Each journal entry is forced to the storage device
+ * after new content is stored and before any content is released, so a crash may leave
+ * unreferenced content behind, but never loses content that is still referenced. Journals are
+ * compacted when they are loaded and whenever most of their entries have been superseded.</p>
+ *
+ * <p>Identifiers that were not stored through this resolver are passed to the delegate
+ * unchanged. Multipart uploads are not deduplicated: they are passed to the delegate, and when an
+ * upload that was started through this resolver is completed, its identifier no longer refers to
+ * deduplicated content, which is released.</p>
+ *
+ * @author acoburn
+ */
+public class DeduplicatingResolver implements BinaryService.Resolver {
+
+    private static final String SUFFIX = ".journal";
+    private static final long COMPACTION_THRESHOLD = 1024L;
+
+    private final BinaryService.Resolver resolver;
+    private final String algorithm;
+    private final String prefix;
+    private final Path directory;
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    /**
+     * Create a deduplicating resolver
+     * @param resolver the resolver used to store content
+     * @param algorithm the digest algorithm used to identify content, such as "SHA-256"
+     * @param prefix the IRI prefix under which content is stored, such as "file:cas/"
+     * @param directory the directory in which the index of identifiers is kept
+     */
+    public DeduplicatingResolver(final BinaryService.Resolver resolver, final String algorithm,
+            final String prefix, final String directory) {
+        requireNonNull(resolver);
+        requireNonNull(prefix);
+        requireNonNull(directory);
+        if (!getMessageDigest(algorithm).isPresent()) {
+            throw new IllegalArgumentException("Unsupported digest algorithm: " + algorithm);
+        }
+        this.resolver = resolver;
+        this.algorithm = algorithm;
+        this.prefix = prefix;
+        this.directory = Paths.get(directory);
+        try {
+            createDirectories(this.directory);
+            try (final Stream<Path> files = list(this.directory)) {
+                for (final Path file : (Iterable<Path>) files::iterator) {
+                    final String name = file.getFileName().toString();
+                    if (name.endsWith(SUFFIX)) {
+                        final String partition = new String(getUrlDecoder().decode(name.substring(0,
+                                        name.length() - SUFFIX.length())), UTF_8);
+                        partitions.put(partition, load(file));
+                    }
+                }
+            }
+        } catch (final IOException | IllegalArgumentException ex) {
+            throw new RuntimeRepositoryException("Error loading deduplication index from " + directory, ex);
+        }
+    }
+
+    @Override
+    public List<String> getUriSchemes() {
+        return resolver.getUriSchemes();
+    }
+
+    @Override
+    public Optional<InputStream> getContent(final String partition, final IRI identifier) {
+        return resolver.getContent(partition, getLocation(partition, identifier));
+    }
+
+    @Override
+    public Optional<InputStream> getContent(final String partition, final IRI identifier, final Long offset,
+            final Long length) {
+        return resolver.getContent(partition, getLocation(partition, identifier), offset, length);
+    }
+
+    @Override
+    public Optional<ReadableByteChannel> getChannel(final String partition, final IRI identifier) {
+        return resolver.getChannel(partition, getLocation(partition, identifier));
+    }
+
+    @Override
+    public Boolean exists(final String partition, final IRI identifier) {
+        return resolver.exists(partition, getLocation(partition, identifier));
+    }
+
+    @Override
+    public Map<String, String> getDigests(final String partition, final IRI identifier) {
+        return resolver.getDigests(partition, getLocation(partition, identifier));
+    }
+
+    @Override
+    public void setDigests(final String partition, final IRI identifier, final Map<String, String> digests) {
+        resolver.setDigests(partition, getLocation(partition, identifier), digests);
+    }
+
+    /**
+     * Store binary content
+     *
+     * <p>The content is written to the delegate resolver while its digest is computed. That copy
+     * is removed again if another identifier in the partition already refers to the same digest.</p>
+     *
+     * @param partition the partition
+     * @param identifier the identifier
+     * @param stream the content
+     * @param metadata any user metadata
+     */
+    @Override
+    public void setContent(final String partition, final IRI identifier, final InputStream stream,
+            final Map<String, String> metadata) {
+        final Partition index = getPartition(partition);
+        final IRI location = getInstance().createIRI(prefix + randomUUID());
+        final DigestingInputStream input = digesting(singleton(algorithm), stream);
+        try {
+            resolver.setContent(partition, location, input, metadata);
+        } catch (final RuntimeException ex) {
+            try {
+                resolver.purgeContent(partition, location);
+            } catch (final RuntimeException purgeException) {
+                ex.addSuppressed(purgeException);
+            }
+            throw ex;
+        }
+        final Mapping mapping = acquire(index, partition, encode(input.getDigests().get(algorithm)), location);
+        final Mapping previous;
+        try {
+            previous = index.put(identifier, mapping);
+        } catch (final IOException ex) {
+            release(index, partition, mapping.digest);
+            throw new RuntimeRepositoryException("Error storing " + identifier.getIRIString(), ex);
+        }
+        if (previous != null) {
+            release(index, partition, previous.digest);
+        }
+    }
+
+    @Override
+    public void purgeContent(final String partition, final IRI identifier) {
+        final Partition index = partitions.get(partition);
+        final Mapping mapping = forget(index, identifier);
+        if (mapping == null) {
+            resolver.purgeContent(partition, identifier);
+        } else {
+            release(index, partition, mapping.digest);
+        }
+    }
+
+    @Override
+    public Boolean supportsMultipartUpload() {
+        return resolver.supportsMultipartUpload();
+    }
+
+    @Override
+    public String initiateUpload(final String partition, final IRI identifier, final String mimeType) {
+        final String upload = resolver.initiateUpload(partition, identifier, mimeType);
+        uploads.put(upload, new Upload(partition, identifier));
+        return upload;
+    }
+
+    @Override
+    public String uploadPart(final String identifier, final Integer partNumber, final InputStream content) {
+        return resolver.uploadPart(identifier, partNumber, content);
+    }
+
+    @Override
+    public BinaryService.MultipartUpload completeUpload(final String identifier,
+            final Map<Integer, String> partDigests) {
+        final BinaryService.MultipartUpload result = resolver.completeUpload(identifier, partDigests);
+        final Upload upload = uploads.remove(identifier);
+        if (upload != null) {
+            // the delegate has written the assembled content under the identifier itself
+            final Partition index = partitions.get(upload.partition);
+            final Mapping previous = forget(index, upload.identifier);
+            if (previous != null) {
+                release(index, upload.partition, previous.digest);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void abortUpload(final String identifier) {
+        resolver.abortUpload(identifier);
+        uploads.remove(identifier);
+    }
+
+    @Override
+    public Boolean uploadSessionExists(final String identifier) {
+        return resolver.uploadSessionExists(identifier);
+    }
+
+    @Override
+    public Stream<Map.Entry<Integer, String>> listParts(final String identifier) {
+        return resolver.listParts(identifier);
+    }
+
+    /**
+     * Get the number of identifiers in a partition that refer to the given content
+     * @param partition the partition
+     * @param digest the URL-safe content digest, as used in the stored IRI
+     * @return the number of references
+     */
+    public Long getReferenceCount(final String partition, final String digest) {
+        final Partition index = partitions.get(partition);
+        final Reference reference = index == null ? null : index.references.get(digest);
+        if (reference == null) {
+            return 0L;
+        }
+        synchronized (reference) {
+            return reference.count;
+        }
+    }
+
+    /**
+     * Get the IRI under which the content of a binary is stored by the delegate resolver
+     * @param partition the partition
+     * @param identifier the identifier
+     * @return the storage IRI, which is the identifier itself if it was not stored by this resolver
+     */
+    public IRI getLocation(final String partition, final IRI identifier) {
+        final Partition index = partitions.get(partition);
+        final Mapping mapping = index == null ? null : index.identifiers.get(identifier);
+        return mapping == null ? identifier : mapping.location;
+    }
+
+    private Mapping acquire(final Partition index, final String partition, final String digest,
+            final IRI location) {
+        while (true) {
+            final Reference reference = index.references.computeIfAbsent(digest, k -> new Reference(location));
+            final IRI existing;
+            synchronized (reference) {
+                if (reference.retired) {
+                    // the last reference was released concurrently; start again with a new entry
+                    continue;
+                }
+                reference.count += 1L;
+                existing = reference.location;
+            }
+            if (!existing.equals(location)) {
+                // the same content is already stored, so the new copy is not needed
+                resolver.purgeContent(partition, location);
+            }
+            return new Mapping(digest, existing);
+        }
+    }
+
+    private void release(final Partition index, final String partition, final String digest) {
+        final Reference reference = index.references.get(digest);
+        if (reference == null) {
+            return;
+        }
+        synchronized (reference) {
+            if (reference.retired || --reference.count > 0L) {
+                return;
+            }
+            try {
+                resolver.purgeContent(partition, reference.location);
+            } finally {
+                retire(index, digest, reference);
+            }
+        }
+    }
+
+    private static Mapping forget(final Partition index, final IRI identifier) {
+        try {
+            return index == null ? null : index.remove(identifier);
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error removing " + identifier.getIRIString(), ex);
+        }
+    }
+
+    private Partition getPartition(final String partition) {
+        return partitions.computeIfAbsent(partition, k -> new Partition(directory.resolve(
+                        getUrlEncoder().encodeToString(k.getBytes(UTF_8)) + SUFFIX)));
+    }
+
+    private static void retire(final Partition index, final String digest, final Reference reference) {
+        reference.retired = true;
+        index.references.remove(digest, reference);
+    }
+
+    private static Partition load(final Path journal) throws IOException {
+        final Partition index = new Partition(journal);
+        long entries = 0L;
+        try (final BufferedReader reader = newBufferedReader(journal, UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                entries += 1L;
+                final String[] fields = line.split("\t", -1);
+                // a complete entry ends with a tab, so a line truncated by a crash is ignored
+                if (fields.length == 4 && fields[3].isEmpty() && !fields[0].isEmpty()) {
+                    final IRI identifier = getInstance().createIRI(fields[0]);
+                    if (fields[1].isEmpty()) {
+                        index.identifiers.remove(identifier);
+                    } else {
+                        index.identifiers.put(identifier, new Mapping(fields[1],
+                                    getInstance().createIRI(fields[2])));
+                    }
+                }
+            }
+        }
+        for (final Mapping mapping : index.identifiers.values()) {
+            index.references.computeIfAbsent(mapping.digest, k -> new Reference(mapping.location)).count += 1L;
+        }
+        index.entries = entries;
+        if (entries > index.identifiers.size()) {
+            index.compact();
+        }
+        return index;
+    }
+
+    private static String encode(final String digest) {
+        final StringBuilder builder = new StringBuilder(digest.length());
+        for (final char c : digest.toCharArray()) {
+            if (c == '+') {
+                builder.append('-');
+            } else if (c == '/') {
+                builder.append('_');
+            } else if (c != '=') {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static final class Upload {
+        private final String partition;
+        private final IRI identifier;
+
+        private Upload(final String partition, final IRI identifier) {
+            this.partition = partition;
+            this.identifier = identifier;
+        }
+    }
+
+    private static final class Mapping {
+        private final String digest;
+        private final IRI location;
+
+        private Mapping(final String digest, final IRI location) {
+            this.digest = digest;
+            this.location = location;
+        }
+    }
+
+    private static final class Reference {
+        private final IRI location;
+        private long count;
+        private boolean retired;
+
+        private Reference(final IRI location) {
+            this.location = location;
+        }
+    }
+
+    private static final class Partition {
+        private final Path journal;
+        private final Map<IRI, Mapping> identifiers = new ConcurrentHashMap<>();
+        private final Map<String, Reference> references = new ConcurrentHashMap<>();
+        private long entries;
+
+        private Partition(final Path journal) {
+            this.journal = journal;
+        }
+
+        private synchronized Mapping put(final IRI identifier, final Mapping mapping) throws IOException {
+            append(entry(identifier, mapping));
+            final Mapping previous = identifiers.put(identifier, mapping);
+            compactIfNeeded();
+            return previous;
+        }
+
+        private synchronized Mapping remove(final IRI identifier) throws IOException {
+            if (!identifiers.containsKey(identifier)) {
+                return null;
+            }
+            append(identifier.getIRIString() + "\t\t\t\n");
+            final Mapping previous = identifiers.remove(identifier);
+            compactIfNeeded();
+            return previous;
+        }
+
+        private void append(final String entry) throws IOException {
+            try (final FileChannel channel = FileChannel.open(journal, CREATE, WRITE, APPEND)) {
+                write(channel, entry);
+                // the entry must be durable before any content that it supersedes is released
+                channel.force(false);
+            }
+            entries += 1L;
+        }
+
+        private void compactIfNeeded() {
+            if (entries > COMPACTION_THRESHOLD && entries > 2L * identifiers.size()) {
+                try {
+                    compact();
+                } catch (final IOException ex) {
+                    // the journal is still complete, so compaction is simply tried again later
+                }
+            }
+        }
+
+        private synchronized void compact() throws IOException {
+            final Path tmp = createTempFile(journal.getParent(), ".", ".tmp");
+            try {
+                try (final FileChannel channel = FileChannel.open(tmp, WRITE)) {
+                    final StringBuilder builder = new StringBuilder();
+                    for (final Map.Entry<IRI, Mapping> entry : identifiers.entrySet()) {
+                        builder.append(entry(entry.getKey(), entry.getValue()));
+                    }
+                    write(channel, builder.toString());
+                    channel.force(false);
+                }
+                move(tmp, journal, ATOMIC_MOVE, REPLACE_EXISTING);
+                entries = identifiers.size();
+            } finally {
+                deleteIfExists(tmp);
+            }
+        }
+
+        private static String entry(final IRI identifier, final Mapping mapping) {
+            return identifier.getIRIString() + "\t" + mapping.digest + "\t" + mapping.location.getIRIString() +
+                "\t\n";
+        }
+
+        private static void write(final FileChannel channel, final String data) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.wrap(data.getBytes(UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Arrays.asList;
+import static java.util.Arrays.stream;
+import static java.util.Collections.unmodifiableList;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.Quad;
+
+/**
+ * An {@link AuditService} that describes each mutation with the PROV and Activity Stream vocabularies.
+ *
+ * <p>For each mutation, the following quads are generated in the {@code trellis:PreferAudit} graph:</p>
+ *
+ * <pre>{@code
+ * <resource> prov:wasGeneratedBy _:b .
+ * _:b rdf:type prov:Activity, as:Create .
+ * _:b prov:wasAssociatedWith <agent> .
+ * _:b prov:startedAtTime "2017-11-01T12:00:00Z"^^xsd:dateTime .
+ * _:b prov:actedOnBehalfOf <delegate> .
+ * }</pre>
+ *
+ * <p>The activity type is {@code as:Update} or {@code as:Delete} as appropriate, and the last quad is
+ * only present if the session has a delegating agent. All of the predicate, type and graph IRIs are
+ * created once, the quads are written directly into a fixed-size array, and the time literal is shared
+ * by every mutation generated in a single call.</p>
+ *
+ * @author acoburn
+ */
+public class DefaultAuditService implements AuditService {
+
+    private static final String PROV_NAMESPACE = "http://www.w3.org/ns/prov#";
+    private static final String AS_NAMESPACE = "https://www.w3.org/ns/activitystreams#";
+
+    private static final IRI PREFER_AUDIT = getInstance().createIRI("http://www.trellisldp.org/ns/trellis#PreferAudit");
+    private static final IRI TYPE = getInstance().createIRI("http://www.w3.org/1999/02/22-rdf-syntax-ns#type");
+    private static final IRI DATE_TIME = getInstance().createIRI("http://www.w3.org/2001/XMLSchema#dateTime");
+    private static final IRI ACTIVITY = getInstance().createIRI(PROV_NAMESPACE + "Activity");
+    private static final IRI WAS_GENERATED_BY = getInstance().createIRI(PROV_NAMESPACE + "wasGeneratedBy");
+    private static final IRI WAS_ASSOCIATED_WITH = getInstance().createIRI(PROV_NAMESPACE + "wasAssociatedWith");
+    private static final IRI STARTED_AT_TIME = getInstance().createIRI(PROV_NAMESPACE + "startedAtTime");
+    private static final IRI ACTED_ON_BEHALF_OF = getInstance().createIRI(PROV_NAMESPACE + "actedOnBehalfOf");
+    private static final IRI CREATE = getInstance().createIRI(AS_NAMESPACE + "Create");
+    private static final IRI UPDATE = getInstance().createIRI(AS_NAMESPACE + "Update");
+    private static final IRI DELETE = getInstance().createIRI(AS_NAMESPACE + "Delete");
+
+    @Override
+    public List<Quad> creation(final IRI identifier, final Session session) {
+        return unmodifiableList(asList(auditData(identifier, session, CREATE, time(session))));
+    }
+
+    @Override
+    public List<Quad> deletion(final IRI identifier, final Session session) {
+        return unmodifiableList(asList(auditData(identifier, session, DELETE, time(session))));
+    }
+
+    @Override
+    public List<Quad> update(final IRI identifier, final Session session) {
+        return unmodifiableList(asList(auditData(identifier, session, UPDATE, time(session))));
+    }
+
+    @Override
+    public Stream<Quad> creations(final Collection<IRI> identifiers, final Session session) {
+        return auditData(identifiers, session, CREATE);
+    }
+
+    @Override
+    public Stream<Quad> deletions(final Collection<IRI> identifiers, final Session session) {
+        return auditData(identifiers, session, DELETE);
+    }
+
+    @Override
+    public Stream<Quad> updates(final Collection<IRI> identifiers, final Session session) {
+        return auditData(identifiers, session, UPDATE);
+    }
+
+    private static Stream<Quad> auditData(final Collection<IRI> identifiers, final Session session,
+            final IRI activity) {
+        final Literal time = time(session);
+        return identifiers.stream().flatMap(identifier -> stream(auditData(identifier, session, activity, time)));
+    }
+
+    private static Quad[] auditData(final IRI identifier, final Session session, final IRI activity,
+            final Literal time) {
+        final Optional<IRI> delegate = session.getDelegatedBy();
+        final BlankNode bnode = getInstance().createBlankNode();
+        final Quad[] quads = new Quad[delegate.isPresent() ? 6 : 5];
+        quads[0] = getInstance().createQuad(PREFER_AUDIT, identifier, WAS_GENERATED_BY, bnode);
+        quads[1] = getInstance().createQuad(PREFER_AUDIT, bnode, TYPE, ACTIVITY);
+        quads[2] = getInstance().createQuad(PREFER_AUDIT, bnode, TYPE, activity);
+        quads[3] = getInstance().createQuad(PREFER_AUDIT, bnode, WAS_ASSOCIATED_WITH, session.getAgent());
+        quads[4] = getInstance().createQuad(PREFER_AUDIT, bnode, STARTED_AT_TIME, time);
+        if (delegate.isPresent()) {
+            quads[5] = getInstance().createQuad(PREFER_AUDIT, bnode, ACTED_ON_BEHALF_OF, delegate.get());
+        }
+        return quads;
+    }
+
+    private static Literal time(final Session session) {
+        return getInstance().createLiteral(session.getCreated().toString(), DATE_TIME);
+    }
+}
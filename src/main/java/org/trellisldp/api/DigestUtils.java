@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The DigestUtils class provides convenience methods for computing
+ * RFC 3230 instance digests.
+ *
+ * @see <a href="https://www.iana.org/assignments/http-dig-alg/http-dig-alg.xhtml">HTTP Digest Algorithm Values</a>
+ *
+ * @author acoburn
+ */
+public final class DigestUtils {
+
+    private static final Map<String, String> ALGORITHMS;
+
+    static {
+        final Map<String, String> algorithms = new HashMap<>();
+        algorithms.put("MD5", "MD5");
+        algorithms.put("SHA", "SHA-1");
+        algorithms.put("SHA-1", "SHA-1");
+        algorithms.put("SHA-256", "SHA-256");
+        algorithms.put("SHA-384", "SHA-384");
+        algorithms.put("SHA-512", "SHA-512");
+        ALGORITHMS = unmodifiableMap(algorithms);
+    }
+
+    /**
+     * Get a MessageDigest for an HTTP digest algorithm name
+     * @param algorithm the algorithm name, such as "md5" or "sha-256"
+     * @return a new MessageDigest, if the algorithm is supported
+     */
+    public static Optional<MessageDigest> getMessageDigest(final String algorithm) {
+        final String name = ALGORITHMS.get(algorithm.toUpperCase(Locale.ROOT));
+        if (name != null) {
+            try {
+                return of(MessageDigest.getInstance(name));
+            } catch (final NoSuchAlgorithmException ex) {
+                return empty();
+            }
+        }
+        return empty();
+    }
+
+    /**
+     * Compute several digests over an input stream in a single pass
+     *
+     * <p>Note: unsupported algorithms are omitted from the result. The stream is read to the end,
+     * but it is not closed.</p>
+     *
+     * @param algorithms the algorithm names
+     * @param stream the input stream
+     * @return the base64-encoded digest values, keyed by algorithm name
+     */
+    public static Map<String, String> digest(final Collection<String> algorithms, final InputStream stream) {
+        final DigestingInputStream input = digesting(algorithms, stream);
+        try {
+            final byte[] buffer = new byte[8192];
+            while (input.read(buffer) >= 0) {
+                // read the stream to the end
+            }
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error computing digests", ex);
+        }
+        return input.getDigests();
+    }
+
+    /**
+     * Wrap an input stream so that digests are computed as it is read
+     * @param algorithms the algorithm names
+     * @param stream the input stream
+     * @return a digesting input stream
+     */
+    static DigestingInputStream digesting(final Collection<String> algorithms, final InputStream stream) {
+        final Map<String, MessageDigest> digests = new HashMap<>();
+        algorithms.forEach(algorithm -> getMessageDigest(algorithm).ifPresent(digest ->
+                    digests.put(algorithm, digest)));
+        return new DigestingInputStream(stream, digests);
+    }
+
+    private DigestUtils() {
+        // prevent instantiation
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Base64.getEncoder;
+import static java.util.Collections.unmodifiableMap;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An InputStream that computes a set of digests over the bytes that are read.
+ *
+ * @author acoburn
+ */
+final class DigestingInputStream extends FilterInputStream {
+
+    private final Map<String, MessageDigest> digests;
+    private Map<String, String> values;
+
+    /**
+     * Create a digesting input stream
+     * @param stream the input stream
+     * @param digests the message digests, keyed by algorithm name
+     */
+    DigestingInputStream(final InputStream stream, final Map<String, MessageDigest> digests) {
+        super(stream);
+        this.digests = digests;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = super.read();
+        if (b >= 0) {
+            for (final MessageDigest digest : digests.values()) {
+                digest.update((byte) b);
+            }
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int count = super.read(b, off, len);
+        if (count > 0) {
+            for (final MessageDigest digest : digests.values()) {
+                digest.update(b, off, count);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        if (n <= 0L) {
+            return 0L;
+        }
+        final byte[] buffer = new byte[(int) Math.min(n, 8192L)];
+        long skipped = 0L;
+        while (skipped < n) {
+            final int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (count < 0) {
+                break;
+            }
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Get the base64-encoded digests of the bytes read so far
+     *
+     * <p>Note: the digests are finalized on the first call, so this should only be called once
+     * the stream has been fully consumed.</p>
+     *
+     * @return the digest values, keyed by algorithm name
+     */
+    Map<String, String> getDigests() {
+        if (values == null) {
+            final Map<String, String> computed = new HashMap<>();
+            digests.forEach((algorithm, digest) ->
+                    computed.put(algorithm, getEncoder().encodeToString(digest.digest())));
+            values = unmodifiableMap(computed);
+        }
+        return values;
+    }
+}
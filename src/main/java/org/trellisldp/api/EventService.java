@@ -13,6 +13,8 @@
  */
 package org.trellisldp.api;
 
+import java.util.Collection;
+
 /**
  * The EventService provides a mechanism by which events can be emitted
  * to a message broker.
@@ -26,4 +28,16 @@ public interface EventService {
      * @param event the event
      */
     void emit(Event event);
+
+    /**
+     * Emit several events to the event service
+     *
+     * <p>Note: the default implementation emits each event in turn. Implementations that can send
+     * a batch of events to the message broker at once may override this method.</p>
+     *
+     * @param events the events
+     */
+    default void emitAll(final Collection<? extends Event> events) {
+        events.forEach(this::emit);
+    }
 }
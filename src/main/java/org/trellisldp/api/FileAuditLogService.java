@@ -0,0 +1,536 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.list;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newBufferedReader;
+import static java.nio.file.Files.newBufferedWriter;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.size;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.copyOf;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.stream.Collectors.toList;
+import static org.trellisldp.api.BoundedInputStream.range;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+
+/**
+ * An {@link AuditLogService} that appends audit quads to a sequence of segment files.
+ *
+ * <p>Each quad is written as one line: the time of the operation, a tab, the resource identifier,
+ * another tab and then the quad in N-Quads form. Lines are only ever appended, and when the current
+ * segment would grow beyond the configured size, a new segment is started. The earliest and latest
+ * time in each segment are kept in memory, so a time-range query only reads the segments that
+ * overlap the range. For each segment, the byte ranges written for each resource are recorded as
+ * well, so a query for one resource reads only its own lines.</p>
+ *
+ * <p>The byte ranges of the current segment are kept in memory. When a segment is sealed, and when
+ * the service is closed, they are saved next to the segment in a {@code .idx} file, and the ranges
+ * of a sealed segment are only read from that file, one segment at a time, by a query for one
+ * resource. When the service is created, only the first line of each index, which holds the
+ * length of the segment and its range of times, is read, except for the current segment, and for
+ * a segment whose index is missing or out of date, which is read again and indexed; a partial line
+ * left at the end of a segment by an interrupted write is removed. A query reads each segment only
+ * up to its length at the time of the query, so it never sees a partial line that is still being
+ * written.</p>
+ *
+ * <p>Note: the segments are written to the operating system on each call to {@link #append}, but
+ * they are not forced to the storage device.</p>
+ *
+ * @author acoburn
+ */
+public class FileAuditLogService implements AuditLogService, AutoCloseable {
+
+    private static final char FIELD_SEPARATOR = '\t';
+    private static final String SEGMENT_PATTERN = "\\d{20}\\.nq";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String NONE = "-";
+    private static final Long DEFAULT_SEGMENT_SIZE = 64L * 1024L * 1024L;
+
+    private final Path directory;
+    private final Long maxSegmentSize;
+    private final List<Segment> segments = new ArrayList<>();
+
+    private FileChannel active;
+
+    /**
+     * Create a file-based audit log with a default segment size
+     * @param directory the directory that holds the segment files
+     */
+    public FileAuditLogService(final String directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Create a file-based audit log
+     * @param directory the directory that holds the segment files
+     * @param maxSegmentSize the size in bytes beyond which a new segment is started
+     */
+    public FileAuditLogService(final String directory, final Long maxSegmentSize) {
+        requireNonNull(directory);
+        if (maxSegmentSize < 1L) {
+            throw new IllegalArgumentException("Invalid segment size: " + maxSegmentSize);
+        }
+        this.directory = Paths.get(directory).toAbsolutePath();
+        this.maxSegmentSize = maxSegmentSize;
+        try {
+            createDirectories(this.directory);
+            final List<Path> files;
+            try (final Stream<Path> stream = list(this.directory)) {
+                files = stream.filter(file -> file.getFileName().toString().matches(SEGMENT_PATTERN)).sorted()
+                    .collect(toList());
+            }
+            for (int i = 0; i < files.size(); ++i) {
+                final Path file = files.get(i);
+                segments.add(i + 1 < files.size() ? loadSealed(file, indexPath(file)) : load(file, indexPath(file)));
+            }
+            if (segments.isEmpty()) {
+                segments.add(new Segment(0L, segmentPath(0L)));
+            }
+            final Segment last = segments.get(segments.size() - 1);
+            this.active = FileChannel.open(last.path, CREATE, WRITE);
+            active.position(last.size);
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error opening audit log " + directory, ex);
+        }
+    }
+
+    @Override
+    public synchronized void append(final IRI identifier, final Instant time, final Collection<Quad> quads) {
+        requireNonNull(identifier);
+        requireNonNull(time);
+        if (quads.isEmpty()) {
+            return;
+        }
+        final StringBuilder builder = new StringBuilder();
+        final String prefix = time.toString() + FIELD_SEPARATOR + identifier.getIRIString() + FIELD_SEPARATOR;
+        for (final Quad quad : quads) {
+            builder.append(prefix);
+            NQuads.write(quad, builder);
+            builder.append('\n');
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(builder.toString().getBytes(UTF_8));
+        try {
+            Segment segment = segments.get(segments.size() - 1);
+            if (segment.size > 0L && segment.size + buffer.remaining() > maxSegmentSize) {
+                segment = rollover(segment);
+            }
+            final long start = active.position();
+            while (buffer.hasRemaining()) {
+                active.write(buffer);
+            }
+            segment.size = active.position();
+            segment.include(time);
+            segment.add(identifier.getIRIString(), start, segment.size);
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error appending to audit log " + directory, ex);
+        }
+    }
+
+    /**
+     * Read the audit quads for a resource
+     *
+     * <p>Only the lines that were written for this resource are read, using the per-segment
+     * index of byte ranges. A sealed segment without a usable index is read in full.</p>
+     *
+     * @param identifier the resource identifier
+     * @param from the earliest time to include
+     * @param until the time before which to stop
+     * @return the audit quads, in the order in which they were appended
+     */
+    @Override
+    public Stream<Quad> read(final IRI identifier, final Instant from, final Instant until) {
+        requireNonNull(from);
+        requireNonNull(until);
+        final String id = identifier.getIRIString();
+        final List<Supplier<Stream<String>>> parts = new ArrayList<>();
+        synchronized (this) {
+            for (final Segment segment : segments) {
+                if (!segment.overlaps(from, until)) {
+                    continue;
+                }
+                final Segment copy = segment.copy();
+                if (segment.ranges == null) {
+                    parts.add(() -> readIndex(copy, id).map(offsets -> lines(copy, offsets))
+                            .orElseGet(() -> lines(copy, 0L, copy.size)));
+                } else if (segment.ranges.containsKey(id)) {
+                    final long[] offsets = segment.ranges.get(id).toArray();
+                    parts.add(() -> lines(copy, offsets));
+                }
+            }
+        }
+        return parts.stream().flatMap(Supplier::get).map(line -> parse(line, id, from, until))
+            .filter(Optional::isPresent).map(Optional::get);
+    }
+
+    @Override
+    public Stream<Quad> read(final Instant from, final Instant until) {
+        return scan(null, from, until);
+    }
+
+    /**
+     * Close the current segment and save its index
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            active.close();
+            final Segment last = segments.get(segments.size() - 1);
+            saveIndex(last);
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error closing audit log " + directory, ex);
+        }
+    }
+
+    private Stream<Quad> scan(final String identifier, final Instant from, final Instant until) {
+        requireNonNull(from);
+        requireNonNull(until);
+        final List<Segment> snapshot;
+        synchronized (this) {
+            snapshot = segments.stream().filter(segment -> segment.overlaps(from, until)).map(Segment::copy)
+                .collect(toList());
+        }
+        return snapshot.stream().flatMap(segment -> lines(segment, 0L, segment.size))
+            .map(line -> parse(line, identifier, from, until)).filter(Optional::isPresent).map(Optional::get);
+    }
+
+    private Segment rollover(final Segment current) throws IOException {
+        final long sequence = current.sequence + 1L;
+        final Segment segment = new Segment(sequence, segmentPath(sequence));
+        active.close();
+        try {
+            saveIndex(current);
+        } catch (final IOException ex) {
+            // the segment is read in full until its index is rebuilt when the service is next created
+        }
+        current.seal();
+        active = FileChannel.open(segment.path, CREATE, WRITE);
+        segments.add(segment);
+        return segment;
+    }
+
+    private Path segmentPath(final long sequence) {
+        return directory.resolve(String.format("%020d.nq", sequence));
+    }
+
+    private static Path indexPath(final Path segment) {
+        final String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.indexOf('.')) + INDEX_SUFFIX);
+    }
+
+    private static void saveIndex(final Segment segment) throws IOException {
+        final Path index = indexPath(segment.path);
+        final Path tmp = index.resolveSibling(index.getFileName() + ".tmp");
+        try (final BufferedWriter writer = newBufferedWriter(tmp, UTF_8)) {
+            writer.write(segment.size + "\t" + (segment.earliest == null ? NONE : segment.earliest) + "\t" +
+                    (segment.latest == null ? NONE : segment.latest) + "\n");
+            for (final Map.Entry<String, Ranges> entry : segment.ranges.entrySet()) {
+                writer.write(entry.getKey());
+                final long[] offsets = entry.getValue().toArray();
+                for (final long offset : offsets) {
+                    writer.write(FIELD_SEPARATOR);
+                    writer.write(Long.toString(offset));
+                }
+                writer.write('\n');
+            }
+        }
+        move(tmp, index, ATOMIC_MOVE, REPLACE_EXISTING);
+    }
+
+    /**
+     * Read the byte ranges of a sealed segment written for one resource
+     * @return the ranges, or an empty value if the index is missing, invalid or does not match the segment
+     */
+    private static Optional<long[]> readIndex(final Segment segment, final String identifier) {
+        if (!exists(indexPath(segment.path))) {
+            return empty();
+        }
+        final String prefix = identifier + FIELD_SEPARATOR;
+        try (final BufferedReader reader = newBufferedReader(indexPath(segment.path), UTF_8)) {
+            if (Long.parseLong(reader.readLine().split("\t")[0]) != segment.size) {
+                return empty();
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(prefix)) {
+                    final String[] fields = line.split("\t");
+                    final long[] offsets = new long[fields.length - 1];
+                    for (int i = 1; i < fields.length; ++i) {
+                        offsets[i - 1] = Long.parseLong(fields[i]);
+                    }
+                    return of(offsets);
+                }
+            }
+            return of(new long[0]);
+        } catch (final IOException | RuntimeException ex) {
+            // an unreadable index is ignored, and the segment is read in full
+            return empty();
+        }
+    }
+
+    /**
+     * Load a saved segment index
+     * @param ranges whether to load the byte ranges, or only the first line of the index
+     * @return the segment, or an empty value if the index is missing, invalid or longer than the segment
+     */
+    private static Optional<Segment> loadIndex(final Segment segment, final Path index, final long size,
+            final boolean ranges) {
+        if (!exists(index)) {
+            return empty();
+        }
+        final Segment loaded = new Segment(segment.sequence, segment.path);
+        try (final BufferedReader reader = newBufferedReader(index, UTF_8)) {
+            final String[] header = reader.readLine().split("\t");
+            loaded.size = Long.parseLong(header[0]);
+            if (loaded.size > size) {
+                return empty();
+            }
+            if (!NONE.equals(header[1])) {
+                loaded.include(Instant.parse(header[1]));
+                loaded.include(Instant.parse(header[2]));
+            }
+            String line;
+            while (ranges && (line = reader.readLine()) != null) {
+                final String[] fields = line.split("\t");
+                for (int i = 1; i + 1 < fields.length; i += 2) {
+                    loaded.add(fields[0], Long.parseLong(fields[i]), Long.parseLong(fields[i + 1]));
+                }
+            }
+            return of(loaded);
+        } catch (final IOException | RuntimeException ex) {
+            // an unreadable index is rebuilt from the segment
+            return empty();
+        }
+    }
+
+    /**
+     * Load a sealed segment, keeping only its length and range of times in memory
+     */
+    private static Segment loadSealed(final Path file, final Path index) throws IOException {
+        final long length = size(file);
+        final Optional<Segment> indexed = loadIndex(unindexed(file), index, length, false)
+            .filter(segment -> segment.size == length);
+        if (indexed.isPresent()) {
+            indexed.get().seal();
+            return indexed.get();
+        }
+        final Segment segment = load(file, index);
+        try {
+            saveIndex(segment);
+        } catch (final IOException ex) {
+            // the segment is read in full until its index can be saved
+        }
+        segment.seal();
+        return segment;
+    }
+
+    private static Segment unindexed(final Path file) {
+        final String name = file.getFileName().toString();
+        return new Segment(Long.parseLong(name.substring(0, name.indexOf('.'))), file);
+    }
+
+    private static Segment load(final Path file, final Path index) throws IOException {
+        final Segment unindexed = unindexed(file);
+        try (final FileChannel channel = FileChannel.open(file, WRITE)) {
+            final long size = channel.size();
+            final Segment segment = loadIndex(unindexed, index, size, true).orElse(unindexed);
+            if (segment.size == size) {
+                return segment;
+            }
+            try (final BufferedReader reader = new BufferedReader(new InputStreamReader(range(newInputStream(file),
+                                segment.size, Long.MAX_VALUE), UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final long end = segment.size + line.getBytes(UTF_8).length + 1L;
+                    if (end > size) {
+                        break;
+                    }
+                    time(line).ifPresent(segment::include);
+                    identifier(line).ifPresent(identifier -> segment.add(identifier, segment.size, end));
+                    segment.size = end;
+                }
+            }
+            if (segment.size < size) {
+                // drop an incomplete line that was being written when the process stopped
+                channel.truncate(segment.size);
+            }
+            return segment;
+        }
+    }
+
+    private static Stream<String> lines(final Segment segment, final long[] offsets) {
+        final List<Supplier<Stream<String>>> parts = new ArrayList<>();
+        for (int i = 0; i + 1 < offsets.length; i += 2) {
+            final long start = offsets[i];
+            final long end = offsets[i + 1];
+            parts.add(() -> lines(segment, start, end));
+        }
+        return parts.stream().flatMap(Supplier::get);
+    }
+
+    private static Stream<String> lines(final Segment segment, final long start, final long end) {
+        try {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(range(newInputStream(segment.path),
+                            start, Math.min(end, segment.size) - start), UTF_8));
+            return reader.lines().onClose(() -> {
+                try {
+                    reader.close();
+                } catch (final IOException ex) {
+                    throw new RuntimeRepositoryException("Error closing audit log segment " + segment.path, ex);
+                }
+            });
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error reading audit log segment " + segment.path, ex);
+        }
+    }
+
+    private static Optional<Instant> time(final String line) {
+        final int separator = line.indexOf(FIELD_SEPARATOR);
+        if (separator < 0) {
+            return empty();
+        }
+        try {
+            return of(Instant.parse(line.substring(0, separator)));
+        } catch (final DateTimeParseException ex) {
+            return empty();
+        }
+    }
+
+    private static Optional<String> identifier(final String line) {
+        final int first = line.indexOf(FIELD_SEPARATOR);
+        final int second = first < 0 ? -1 : line.indexOf(FIELD_SEPARATOR, first + 1);
+        return second < 0 ? empty() : of(line.substring(first + 1, second));
+    }
+
+    private static Optional<Quad> parse(final String line, final String identifier, final Instant from,
+            final Instant until) {
+        final int first = line.indexOf(FIELD_SEPARATOR);
+        final int second = first < 0 ? -1 : line.indexOf(FIELD_SEPARATOR, first + 1);
+        if (second < 0 || (identifier != null && (second - first - 1 != identifier.length() ||
+                        !line.regionMatches(first + 1, identifier, 0, identifier.length())))) {
+            return empty();
+        }
+        final Optional<Instant> time = time(line);
+        if (!time.isPresent() || time.get().isBefore(from) || !time.get().isBefore(until)) {
+            return empty();
+        }
+        try {
+            return of(NQuads.parse(line, second + 1));
+        } catch (final IllegalArgumentException ex) {
+            return empty();
+        }
+    }
+
+    /**
+     * A segment file, with its committed length, the range of times it contains and, until it is
+     * sealed, the byte ranges written for each resource.
+     */
+    private static final class Segment {
+        private final long sequence;
+        private final Path path;
+        private Map<String, Ranges> ranges = new HashMap<>();
+        private long size;
+        private Instant earliest;
+        private Instant latest;
+
+        private Segment(final long sequence, final Path path) {
+            this.sequence = sequence;
+            this.path = path;
+        }
+
+        private void include(final Instant time) {
+            if (earliest == null || time.isBefore(earliest)) {
+                earliest = time;
+            }
+            if (latest == null || time.isAfter(latest)) {
+                latest = time;
+            }
+        }
+
+        private void add(final String identifier, final long start, final long end) {
+            ranges.computeIfAbsent(identifier, k -> new Ranges()).add(start, end);
+        }
+
+        private void seal() {
+            ranges = null;
+        }
+
+        private Boolean overlaps(final Instant from, final Instant until) {
+            return earliest != null && !latest.isBefore(from) && earliest.isBefore(until);
+        }
+
+        private Segment copy() {
+            final Segment segment = new Segment(sequence, path);
+            segment.size = size;
+            segment.earliest = earliest;
+            segment.latest = latest;
+            return segment;
+        }
+    }
+
+    /**
+     * The byte ranges of a segment written for one resource, as pairs of start and end offsets.
+     */
+    private static final class Ranges {
+        private long[] offsets = new long[2];
+        private int count;
+
+        private void add(final long start, final long end) {
+            if (count > 0 && offsets[count - 1] == start) {
+                // extend a range that ends where the new one starts
+                offsets[count - 1] = end;
+                return;
+            }
+            if (count == offsets.length) {
+                offsets = copyOf(offsets, count * 2);
+            }
+            offsets[count++] = start;
+            offsets[count++] = end;
+        }
+
+        private long[] toArray() {
+            return copyOf(offsets, count);
+        }
+    }
+}
@@ -0,0 +1,743 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.channels.Channels.newChannel;
+import static java.nio.channels.Channels.newInputStream;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.getLastModifiedTime;
+import static java.nio.file.Files.list;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.readAllLines;
+import static java.nio.file.Files.readAttributes;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.time.Instant.now;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.UUID.randomUUID;
+import static org.trellisldp.api.BoundedInputStream.checkRange;
+import static org.trellisldp.api.BoundedInputStream.range;
+import static org.trellisldp.api.DigestUtils.digesting;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A {@link BinaryService.Resolver} for binaries stored on a local file system.
+ *
+ * <p>Each partition is mapped to a base directory, and a binary with the identifier
+ * {@code file:some/path} is stored at {@code some/path} relative to that directory. Content is
+ * read and written through {@link FileChannel}s: {@link #transferTo} and {@link #getChannel}
+ * allow callers to send content to a socket without copying it through the heap, and writes use
+ * a per-thread direct buffer. New content is written to a temporary file, which then atomically
+ * replaces any existing content.</p>
+ *
+ * <p>If an upload directory is configured, multipart uploads are also supported. Each part is
+ * staged in a separate file as it arrives, so parts of the same upload may be sent concurrently,
+ * and an in-memory index records the digest of each part. When the upload is completed, the
+ * parts are concatenated with channel-to-channel transfers.</p>
+ *
+ * <p>Upload sessions may be given a timeout, after which the staged parts of abandoned uploads
+ * can be removed with {@link #reapExpiredUploads}, typically by an {@link UploadReaper}.</p>
+ *
+ * <p>Digests recorded with {@link #setDigests} are kept in a hidden file next to the content,
+ * together with the file key, size and modification time of the content, so that they are ignored
+ * once the content is replaced. When content is written along with a digest function, the digests
+ * are computed as the content is written, and they are recorded with the attributes of the new
+ * file before it replaces the existing content. File names that start with a period are reserved for these and
+ * other internal files, so identifiers that refer to them are rejected.</p>
+ *
+ * <p>Note: user metadata is not stored by this resolver, and upload sessions do not survive
+ * a restart.</p>
+ *
+ * @author acoburn
+ */
+public class FileResolver implements BinaryService.Resolver {
+
+    /**
+     * The URI scheme handled by this resolver
+     */
+    public static final String FILE_SCHEME = "file";
+
+    private static final String PREFIX = FILE_SCHEME + ":";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String PART_DIGEST = "MD5";
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> allocateDirect(BUFFER_SIZE));
+
+    private final Map<String, Path> partitions;
+    private final Path uploads;
+    private final UploadSessionRegistry<UploadSession> sessions;
+
+    /**
+     * Create a file-based resolver without support for multipart uploads
+     * @param partitions a mapping of partition names to base directories
+     */
+    public FileResolver(final Map<String, String> partitions) {
+        this(partitions, null, null, Clock.systemUTC());
+    }
+
+    /**
+     * Create a file-based resolver
+     *
+     * <p>The parts of multipart uploads are staged in the upload directory until the upload is
+     * completed or aborted. For efficient assembly, it should be on the same file system as the
+     * partition directories.</p>
+     *
+     * @param partitions a mapping of partition names to base directories
+     * @param uploadDirectory a directory for staging multipart uploads, or null to disable multipart uploads
+     */
+    public FileResolver(final Map<String, String> partitions, final String uploadDirectory) {
+        this(partitions, uploadDirectory, null, Clock.systemUTC());
+    }
+
+    /**
+     * Create a file-based resolver with expiring upload sessions
+     *
+     * <p>An upload session expires once no part has been sent to it for the given time. The staged
+     * parts of expired sessions are removed by {@link #reapExpiredUploads}.</p>
+     *
+     * @param partitions a mapping of partition names to base directories
+     * @param uploadDirectory a directory for staging multipart uploads, or null to disable multipart uploads
+     * @param uploadTimeout how long an idle upload session remains valid, or null for no limit
+     */
+    public FileResolver(final Map<String, String> partitions, final String uploadDirectory,
+            final Duration uploadTimeout) {
+        this(partitions, uploadDirectory, uploadTimeout, Clock.systemUTC());
+    }
+
+    /**
+     * Create a file-based resolver with expiring upload sessions
+     * @param partitions a mapping of partition names to base directories
+     * @param uploadDirectory a directory for staging multipart uploads, or null to disable multipart uploads
+     * @param uploadTimeout how long an idle upload session remains valid, or null for no limit
+     * @param clock the clock used to measure upload session expiry
+     */
+    public FileResolver(final Map<String, String> partitions, final String uploadDirectory,
+            final Duration uploadTimeout, final Clock clock) {
+        requireNonNull(partitions);
+        final Map<String, Path> directories = new HashMap<>();
+        partitions.forEach((partition, directory) ->
+                directories.put(partition, Paths.get(directory).toAbsolutePath().normalize()));
+        this.partitions = unmodifiableMap(directories);
+        this.uploads = uploadDirectory == null ? null : Paths.get(uploadDirectory).toAbsolutePath().normalize();
+        this.sessions = new UploadSessionRegistry<>(uploadTimeout, clock);
+    }
+
+    @Override
+    public List<String> getUriSchemes() {
+        return singletonList(FILE_SCHEME);
+    }
+
+    @Override
+    public Optional<InputStream> getContent(final String partition, final IRI identifier) {
+        return getChannel(partition, identifier).map(channel -> newInputStream(channel));
+    }
+
+    @Override
+    public Optional<InputStream> getContent(final String partition, final IRI identifier, final Long offset,
+            final Long length) {
+        checkRange(offset, length);
+        return getChannel(partition, identifier).map(channel -> {
+            try {
+                return range(newInputStream(((FileChannel) channel).position(offset)), 0L, length);
+            } catch (final IOException ex) {
+                try {
+                    channel.close();
+                } catch (final IOException closeEx) {
+                    ex.addSuppressed(closeEx);
+                }
+                throw new RuntimeRepositoryException("Error seeking in " + identifier.getIRIString(), ex);
+            }
+        });
+    }
+
+    @Override
+    public Optional<ReadableByteChannel> getChannel(final String partition, final IRI identifier) {
+        return getFile(partition, identifier).filter(Files::isRegularFile).map(file -> {
+            try {
+                return FileChannel.open(file, READ);
+            } catch (final IOException ex) {
+                throw new RuntimeRepositoryException("Error opening " + identifier.getIRIString(), ex);
+            }
+        });
+    }
+
+    /**
+     * Transfer a range of the binary content directly to a channel
+     *
+     * <p>Where the platform supports it, bytes are copied by the operating system without passing
+     * through the Java heap.</p>
+     *
+     * @param partition the partition to use
+     * @param identifier the identifier
+     * @param offset the zero-based position of the first byte
+     * @param length the maximum number of bytes
+     * @param target the destination channel
+     * @return the number of bytes transferred, or an empty value if the binary does not exist
+     */
+    public Optional<Long> transferTo(final String partition, final IRI identifier, final Long offset,
+            final Long length, final WritableByteChannel target) {
+        checkRange(offset, length);
+        final Optional<Path> file = getFile(partition, identifier).filter(Files::isRegularFile);
+        if (!file.isPresent()) {
+            return empty();
+        }
+        try (final FileChannel channel = FileChannel.open(file.get(), READ)) {
+            // a length of Long.MAX_VALUE means "to the end", so the sum must not overflow
+            final long end = Math.min(channel.size(), length > Long.MAX_VALUE - offset ? Long.MAX_VALUE
+                    : offset + length);
+            long position = offset;
+            while (position < end) {
+                final long count = channel.transferTo(position, end - position, target);
+                if (count <= 0L) {
+                    break;
+                }
+                position += count;
+            }
+            return of(Math.max(0L, position - offset));
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error transferring " + identifier.getIRIString(), ex);
+        }
+    }
+
+    @Override
+    public Boolean exists(final String partition, final IRI identifier) {
+        return getFile(partition, identifier).filter(Files::isRegularFile).isPresent();
+    }
+
+    @Override
+    public void setContent(final String partition, final IRI identifier, final InputStream stream,
+            final Map<String, String> metadata) {
+        final Path file = getFile(partition, identifier).orElseThrow(() ->
+                new IllegalArgumentException("Invalid location: " + partition + " " + identifier.getIRIString()));
+        try {
+            deleteIfExists(digestFile(file));
+            write(stream, file);
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error writing " + identifier.getIRIString(), ex);
+        }
+    }
+
+    @Override
+    public Map<String, String> setContent(final String partition, final IRI identifier, final InputStream stream,
+            final Map<String, String> metadata, final Function<InputStream, Map<String, String>> digester) {
+        final Path file = getFile(partition, identifier).orElseThrow(() ->
+                new IllegalArgumentException("Invalid location: " + partition + " " + identifier.getIRIString()));
+        try {
+            createDirectories(file.getParent());
+            final Path tmp = createTempFile(file.getParent(), ".", ".tmp");
+            try {
+                final Map<String, String> digests;
+                try (final FileChannel channel = FileChannel.open(tmp, WRITE);
+                        final InputStream input = new CopyingInputStream(stream, channel)) {
+                    digests = digester.apply(input);
+                    // copy anything that the digest function did not read
+                    final byte[] buffer = new byte[BUFFER_SIZE];
+                    while (input.read(buffer) >= 0) {
+                        // the bytes are written by the stream itself
+                    }
+                }
+                // the stamp of the temporary file carries over to the content it becomes
+                writeDigests(digestFile(file), stamp(tmp), digests);
+                move(tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+                return digests;
+            } finally {
+                deleteIfExists(tmp);
+            }
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error writing " + identifier.getIRIString(), ex);
+        }
+    }
+
+    @Override
+    public void purgeContent(final String partition, final IRI identifier) {
+        getFile(partition, identifier).ifPresent(file -> {
+            try {
+                deleteIfExists(digestFile(file));
+                deleteIfExists(file);
+            } catch (final IOException ex) {
+                throw new RuntimeRepositoryException("Error deleting " + identifier.getIRIString(), ex);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, String> getDigests(final String partition, final IRI identifier) {
+        final Optional<Path> file = getFile(partition, identifier).filter(Files::isRegularFile);
+        if (!file.isPresent()) {
+            return emptyMap();
+        }
+        try {
+            final List<String> lines = readAllLines(digestFile(file.get()), UTF_8);
+            if (lines.isEmpty() || !lines.get(0).equals(stamp(file.get()))) {
+                // the content has been replaced since the digests were stored
+                return emptyMap();
+            }
+            final Map<String, String> digests = new HashMap<>();
+            for (final String line : lines.subList(1, lines.size())) {
+                final int separator = line.indexOf('\t');
+                if (separator > 0) {
+                    digests.put(line.substring(0, separator), line.substring(separator + 1));
+                }
+            }
+            return unmodifiableMap(digests);
+        } catch (final NoSuchFileException ex) {
+            return emptyMap();
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error reading digests of " + identifier.getIRIString(), ex);
+        }
+    }
+
+    @Override
+    public void setDigests(final String partition, final IRI identifier, final Map<String, String> digests) {
+        final Optional<Path> file = getFile(partition, identifier).filter(Files::isRegularFile);
+        if (!file.isPresent() || digests.isEmpty()) {
+            return;
+        }
+        try {
+            writeDigests(digestFile(file.get()), stamp(file.get()), digests);
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error writing digests of " + identifier.getIRIString(), ex);
+        }
+    }
+
+    @Override
+    public Boolean supportsMultipartUpload() {
+        return uploads != null;
+    }
+
+    @Override
+    public String initiateUpload(final String partition, final IRI identifier, final String mimeType) {
+        checkMultipartSupport();
+        if (!getFile(partition, identifier).isPresent()) {
+            throw new IllegalArgumentException("Invalid location: " + partition + " " + identifier.getIRIString());
+        }
+        final String sessionId = randomUUID().toString();
+        sessions.register(sessionId, new UploadSession(partition, identifier, mimeType));
+        try {
+            createDirectories(uploads.resolve(sessionId));
+        } catch (final IOException ex) {
+            sessions.remove(sessionId);
+            throw new RuntimeRepositoryException("Error creating upload session for " + identifier.getIRIString(),
+                    ex);
+        }
+        return sessionId;
+    }
+
+    /**
+     * Upload a part
+     *
+     * <p>Parts of the same upload may be uploaded concurrently. Uploading a part number again
+     * replaces the earlier content for that part; uploads of the same part number are serialized.</p>
+     *
+     * @param identifier the upload identifier
+     * @param partNumber the part number
+     * @param content the content to upload
+     * @return the base64-encoded MD5 digest of the part
+     */
+    @Override
+    public String uploadPart(final String identifier, final Integer partNumber, final InputStream content) {
+        checkMultipartSupport();
+        final UploadSession session = getSession(identifier);
+        final Path part = uploads.resolve(identifier).resolve(Integer.toString(partNumber));
+        try {
+            final String digest;
+            // concurrent uploads of the same part must record the digest of the write that lands last
+            final Lock lock = session.lock(partNumber);
+            lock.lock();
+            try {
+                final DigestingInputStream input = digesting(singleton(PART_DIGEST), content);
+                write(input, part);
+                digest = input.getDigests().get(PART_DIGEST);
+                session.parts.put(partNumber, digest);
+            } finally {
+                lock.unlock();
+            }
+            if (!sessions.contains(identifier)) {
+                // the upload was aborted or expired while this part was being written
+                deleteIfExists(part);
+                throw new IllegalArgumentException("Upload session has been closed: " + identifier);
+            }
+            return digest;
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error writing part " + partNumber + " of upload " + identifier, ex);
+        }
+    }
+
+    /**
+     * Complete a multi-part upload
+     *
+     * <p>The listed parts are concatenated in ascending order of their part number, using
+     * channel-to-channel transfers. Any other uploaded parts are discarded. The listed parts cannot
+     * be uploaded again from the time their digests are checked until they have been transferred,
+     * and only one completion of an upload may run at a time.</p>
+     *
+     * <p>Note: this resolver has no knowledge of the base URL, path or session associated with an
+     * upload, so those values are null in the returned {@link BinaryService.MultipartUpload}.</p>
+     *
+     * @param identifier the upload identifier
+     * @param partDigests digest values for each part
+     * @return a multipart upload object
+     */
+    @Override
+    public BinaryService.MultipartUpload completeUpload(final String identifier,
+            final Map<Integer, String> partDigests) {
+        checkMultipartSupport();
+        final UploadSession session = getSession(identifier);
+        if (partDigests.isEmpty()) {
+            throw new IllegalArgumentException("No parts were specified for upload " + identifier);
+        }
+        if (!session.completing.compareAndSet(false, true)) {
+            throw new IllegalArgumentException("Upload is already being completed: " + identifier);
+        }
+
+        // the locks are taken in ascending order of part number, as they are only ever taken together here
+        final List<Lock> locks = new ArrayList<>();
+        boolean completed = false;
+        try {
+            for (final Integer partNumber : new TreeSet<>(partDigests.keySet())) {
+                final Lock lock = session.lock(partNumber);
+                lock.lock();
+                locks.add(lock);
+            }
+            partDigests.forEach((partNumber, digest) -> {
+                if (!digest.equals(session.parts.get(partNumber))) {
+                    throw new IllegalArgumentException("Invalid digest for part " + partNumber + " of upload " +
+                            identifier);
+                }
+            });
+            final BinaryService.MultipartUpload upload = assemble(identifier, session, partDigests);
+            completed = true;
+            return upload;
+        } finally {
+            locks.forEach(Lock::unlock);
+            if (!completed) {
+                // a failed completion may be retried
+                session.completing.set(false);
+            }
+        }
+    }
+
+    private BinaryService.MultipartUpload assemble(final String identifier, final UploadSession session,
+            final Map<Integer, String> partDigests) {
+        final Path file = getFile(session.partition, session.identifier).orElseThrow(() ->
+                new IllegalArgumentException("Invalid location: " + session.identifier.getIRIString()));
+        final Path directory = uploads.resolve(identifier);
+        try {
+            createDirectories(file.getParent());
+            final Path tmp = createTempFile(file.getParent(), ".", ".tmp");
+            long size = 0L;
+            try {
+                try (final FileChannel target = FileChannel.open(tmp, WRITE)) {
+                    for (final Integer partNumber : new TreeSet<>(partDigests.keySet())) {
+                        size += transfer(directory.resolve(Integer.toString(partNumber)), target);
+                    }
+                }
+                deleteIfExists(digestFile(file));
+                move(tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+            } finally {
+                deleteIfExists(tmp);
+            }
+            abortUpload(identifier);
+            return new BinaryService.MultipartUpload(null, null, null,
+                    new Binary(session.identifier, now(), session.mimeType, size));
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error completing upload " + identifier, ex);
+        }
+    }
+
+    @Override
+    public void abortUpload(final String identifier) {
+        checkMultipartSupport();
+        if (sessions.remove(identifier).isPresent()) {
+            try {
+                deleteUpload(uploads.resolve(identifier));
+            } catch (final IOException ex) {
+                throw new RuntimeRepositoryException("Error removing upload " + identifier, ex);
+            }
+        }
+    }
+
+    @Override
+    public Boolean uploadSessionExists(final String identifier) {
+        return uploads != null && sessions.contains(identifier);
+    }
+
+    @Override
+    public Stream<Map.Entry<Integer, String>> listParts(final String identifier) {
+        checkMultipartSupport();
+        return getSession(identifier).parts.entrySet().stream();
+    }
+
+    /**
+     * Remove the staged parts of expired upload sessions
+     *
+     * <p>Staging directories that do not belong to any known session, such as those left behind
+     * by an earlier process, are also removed once they have not been modified for the upload
+     * timeout. If no timeout is configured, nothing is removed.</p>
+     *
+     * @return the number of bytes reclaimed
+     */
+    public Long reapExpiredUploads() {
+        if (uploads == null) {
+            return 0L;
+        }
+        long reclaimed = 0L;
+        try {
+            for (final String identifier : sessions.expire().keySet()) {
+                reclaimed += deleteUpload(uploads.resolve(identifier));
+            }
+            if (Files.isDirectory(uploads)) {
+                try (final Stream<Path> directories = list(uploads)) {
+                    for (final Path directory : (Iterable<Path>) directories::iterator) {
+                        if (isOrphaned(directory)) {
+                            reclaimed += deleteUpload(directory);
+                        }
+                    }
+                }
+            }
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error removing expired uploads", ex);
+        }
+        return reclaimed;
+    }
+
+    /**
+     * Get the file for a binary object
+     * @param partition the partition
+     * @param identifier the identifier
+     * @return the file, if the identifier is a valid location within the partition
+     */
+    protected Optional<Path> getFile(final String partition, final IRI identifier) {
+        final Path base = partitions.get(partition);
+        final String iri = identifier.getIRIString();
+        if (base == null || !iri.startsWith(PREFIX)) {
+            return empty();
+        }
+        String path = iri.substring(PREFIX.length());
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        final Path file = base.resolve(path).normalize();
+        if (!file.startsWith(base) || file.equals(base) || file.getFileName().toString().startsWith(".")) {
+            return empty();
+        }
+        return of(file);
+    }
+
+    private static Path digestFile(final Path file) {
+        return file.resolveSibling("." + file.getFileName() + ".digests");
+    }
+
+    private static void writeDigests(final Path sidecar, final String stamp, final Map<String, String> digests)
+            throws IOException {
+        final StringBuilder builder = new StringBuilder(stamp).append('\n');
+        digests.forEach((algorithm, value) -> builder.append(algorithm).append('\t').append(value).append('\n'));
+        final Path tmp = createTempFile(sidecar.getParent(), ".", ".tmp");
+        try {
+            Files.write(tmp, builder.toString().getBytes(UTF_8));
+            move(tmp, sidecar, ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            deleteIfExists(tmp);
+        }
+    }
+
+    private static String stamp(final Path file) throws IOException {
+        // a replaced file has a new file key, as content is always moved into place
+        final BasicFileAttributes attributes = readAttributes(file, BasicFileAttributes.class);
+        return attributes.fileKey() + "\t" + attributes.size() + "\t" + attributes.lastModifiedTime().toMillis();
+    }
+
+    private void checkMultipartSupport() {
+        if (uploads == null) {
+            throw new UnsupportedOperationException("Multipart uploads are not supported");
+        }
+    }
+
+    private UploadSession getSession(final String identifier) {
+        return sessions.get(identifier).orElseThrow(() ->
+                new IllegalArgumentException("Upload session does not exist: " + identifier));
+    }
+
+    private boolean isOrphaned(final Path directory) throws IOException {
+        return Files.isDirectory(directory) && !sessions.contains(directory.getFileName().toString()) &&
+            sessions.isExpired(getLastModifiedTime(directory).toInstant());
+    }
+
+    private static long deleteUpload(final Path directory) throws IOException {
+        long size = 0L;
+        if (Files.isDirectory(directory)) {
+            try (final Stream<Path> files = list(directory)) {
+                for (final Path file : (Iterable<Path>) files::iterator) {
+                    size += Files.size(file);
+                    deleteIfExists(file);
+                }
+            }
+        }
+        deleteIfExists(directory);
+        return size;
+    }
+
+    private static long write(final InputStream stream, final Path file) throws IOException {
+        createDirectories(file.getParent());
+        final Path tmp = createTempFile(file.getParent(), ".", ".tmp");
+        try {
+            long size = 0L;
+            try (final ReadableByteChannel source = newChannel(stream);
+                    final FileChannel channel = FileChannel.open(tmp, WRITE)) {
+                final ByteBuffer buffer = BUFFER.get();
+                buffer.clear();
+                while (source.read(buffer) >= 0 || buffer.position() > 0) {
+                    buffer.flip();
+                    size += channel.write(buffer);
+                    buffer.compact();
+                }
+            }
+            move(tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+            return size;
+        } finally {
+            deleteIfExists(tmp);
+        }
+    }
+
+    private static long transfer(final Path part, final FileChannel target) throws IOException {
+        try (final FileChannel source = FileChannel.open(part, READ)) {
+            return transfer(source, target);
+        }
+    }
+
+    static long transfer(final FileChannel source, final WritableByteChannel target) throws IOException {
+        final long size = source.size();
+        long position = 0L;
+        while (position < size) {
+            final long count = source.transferTo(position, size - position, target);
+            if (count <= 0L) {
+                // the source was truncated underneath us, or the target accepts no more data
+                throw new IOException("Transfer stalled at " + position + " of " + size + " bytes");
+            }
+            position += count;
+        }
+        return size;
+    }
+
+    /**
+     * Writes every byte that is read from a stream to a channel.
+     */
+    private static final class CopyingInputStream extends FilterInputStream {
+        private final WritableByteChannel target;
+
+        private CopyingInputStream(final InputStream stream, final WritableByteChannel target) {
+            super(stream);
+            this.target = target;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                copy(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int count = super.read(b, off, len);
+            if (count > 0) {
+                copy(b, off, count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            // skipped bytes must still be copied
+            final byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(n, 0L))];
+            final int count = buffer.length == 0 ? 0 : read(buffer, 0, buffer.length);
+            return Math.max(count, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void copy(final byte[] b, final int off, final int len) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+        }
+    }
+
+    private static final class UploadSession {
+        private final String partition;
+        private final IRI identifier;
+        private final String mimeType;
+        private final ConcurrentNavigableMap<Integer, String> parts = new ConcurrentSkipListMap<>();
+        private final ConcurrentMap<Integer, Lock> locks = new ConcurrentHashMap<>();
+        private final AtomicBoolean completing = new AtomicBoolean();
+
+        private UploadSession(final String partition, final IRI identifier, final String mimeType) {
+            this.partition = partition;
+            this.identifier = identifier;
+            this.mimeType = mimeType;
+        }
+
+        private Lock lock(final Integer partNumber) {
+            return locks.computeIfAbsent(partNumber, k -> new ReentrantLock());
+        }
+    }
+}
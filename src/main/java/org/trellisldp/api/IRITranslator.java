@@ -0,0 +1,192 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Objects.requireNonNull;
+import static org.trellisldp.api.RDFUtils.TRELLIS_PREFIX;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Translates RDF terms between their "internal" and "external" representations for a single base URL.
+ *
+ * <p>This produces the same results as {@link ResourceService#toInternal} and
+ * {@link ResourceService#toExternal}, but each translated IRI is cached, so a term that is seen
+ * repeatedly is only converted once. Terms that need no translation are returned as-is, and triples
+ * or quads are only rebuilt when one of their terms changes. A translator is safe for concurrent use
+ * and is intended to be shared by all requests for a given base URL.</p>
+ *
+ * <p>Cached translations are read without locking. Once a cache is full, an arbitrary translation
+ * is discarded for each new one, so a cache may briefly exceed its size while several threads
+ * add translations at the same time.</p>
+ *
+ * @author acoburn
+ */
+public class IRITranslator {
+
+    private static final Integer DEFAULT_CACHE_SIZE = 10000;
+
+    private final String baseUrl;
+    private final int cacheSize;
+    private final Map<IRI, IRI> internal = new ConcurrentHashMap<>();
+    private final Map<IRI, IRI> external = new ConcurrentHashMap<>();
+
+    /**
+     * Create a translator with a default cache size
+     * @param baseUrl the base URL of the domain
+     */
+    public IRITranslator(final String baseUrl) {
+        this(baseUrl, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Create a translator
+     * @param baseUrl the base URL of the domain
+     * @param cacheSize the maximum number of translations cached in each direction
+     */
+    public IRITranslator(final String baseUrl, final Integer cacheSize) {
+        requireNonNull(baseUrl);
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Invalid cache size: " + cacheSize);
+        }
+        this.baseUrl = baseUrl;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Get the base URL for this translator
+     * @return the base URL
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Return an "internal" representation of an RDF term
+     * @param <T> the type of RDF term
+     * @param term the RDF term
+     * @return the "internal" RDF term
+     */
+    public <T extends RDFTerm> T toInternal(final T term) {
+        if (term instanceof IRI && ((IRI) term).getIRIString().startsWith(baseUrl)) {
+            @SuppressWarnings("unchecked")
+            final T t = (T) translate(internal, (IRI) term, baseUrl, TRELLIS_PREFIX);
+            return t;
+        }
+        return term;
+    }
+
+    /**
+     * Return an "external" representation of an RDF term
+     * @param <T> the type of RDF term
+     * @param term the RDF term
+     * @return the "external" RDF term
+     */
+    public <T extends RDFTerm> T toExternal(final T term) {
+        if (term instanceof IRI && ((IRI) term).getIRIString().startsWith(TRELLIS_PREFIX)) {
+            @SuppressWarnings("unchecked")
+            final T t = (T) translate(external, (IRI) term, TRELLIS_PREFIX, baseUrl);
+            return t;
+        }
+        return term;
+    }
+
+    /**
+     * Return an "internal" representation of an RDF triple
+     * @param triple the triple
+     * @return the "internal" triple
+     */
+    public Triple toInternal(final Triple triple) {
+        final BlankNodeOrIRI subject = toInternal(triple.getSubject());
+        final RDFTerm object = toInternal(triple.getObject());
+        if (subject == triple.getSubject() && object == triple.getObject()) {
+            return triple;
+        }
+        return getInstance().createTriple(subject, triple.getPredicate(), object);
+    }
+
+    /**
+     * Return an "external" representation of an RDF triple
+     * @param triple the triple
+     * @return the "external" triple
+     */
+    public Triple toExternal(final Triple triple) {
+        final BlankNodeOrIRI subject = toExternal(triple.getSubject());
+        final RDFTerm object = toExternal(triple.getObject());
+        if (subject == triple.getSubject() && object == triple.getObject()) {
+            return triple;
+        }
+        return getInstance().createTriple(subject, triple.getPredicate(), object);
+    }
+
+    /**
+     * Return an "internal" representation of an RDF quad
+     *
+     * <p>Note: the graph name is not translated.</p>
+     *
+     * @param quad the quad
+     * @return the "internal" quad
+     */
+    public Quad toInternal(final Quad quad) {
+        final BlankNodeOrIRI subject = toInternal(quad.getSubject());
+        final RDFTerm object = toInternal(quad.getObject());
+        if (subject == quad.getSubject() && object == quad.getObject()) {
+            return quad;
+        }
+        return getInstance().createQuad(quad.getGraphName().orElse(null), subject, quad.getPredicate(), object);
+    }
+
+    /**
+     * Return an "external" representation of an RDF quad
+     *
+     * <p>Note: the graph name is not translated.</p>
+     *
+     * @param quad the quad
+     * @return the "external" quad
+     */
+    public Quad toExternal(final Quad quad) {
+        final BlankNodeOrIRI subject = toExternal(quad.getSubject());
+        final RDFTerm object = toExternal(quad.getObject());
+        if (subject == quad.getSubject() && object == quad.getObject()) {
+            return quad;
+        }
+        return getInstance().createQuad(quad.getGraphName().orElse(null), subject, quad.getPredicate(), object);
+    }
+
+    private IRI translate(final Map<IRI, IRI> cache, final IRI iri, final String from, final String to) {
+        final IRI cached = cache.get(iri);
+        if (cached != null) {
+            return cached;
+        }
+        final IRI translated = getInstance().createIRI(to + iri.getIRIString().substring(from.length()));
+        if (cache.size() >= cacheSize) {
+            final Iterator<IRI> keys = cache.keySet().iterator();
+            if (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        final IRI previous = cache.putIfAbsent(iri, translated);
+        return previous != null ? previous : translated;
+    }
+}
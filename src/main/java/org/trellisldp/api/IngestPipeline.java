@@ -0,0 +1,273 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Arrays.copyOf;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A pipelined alternative to {@link BinaryService.Resolver#setContent}.
+ *
+ * <p>The calling thread reads the content in chunks, which are handed through bounded queues to
+ * two separate tasks on the supplied executor: one computes the requested digests, and the other
+ * writes the content to the resolver. A single large upload can therefore use several cores, while
+ * memory use stays proportional to the chunk size times the queue capacity. If any stage fails,
+ * the other stage is stopped and the failure is reported to the caller. The digests are handed to
+ * {@link BinaryService.Resolver#setDigests} once the content is stored.</p>
+ *
+ * <p>Each ingest uses two tasks, so the executor should have enough threads for the number of
+ * concurrent ingests. A stage that waits longer than the configured timeout for another stage,
+ * for instance because that stage never got a thread, fails the ingest instead of waiting
+ * forever.</p>
+ *
+ * @author acoburn
+ */
+public class IngestPipeline {
+
+    private static final byte[] END = new byte[0];
+    private static final long POLL_INTERVAL = 10L;
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(1L);
+
+    private final ExecutorService executor;
+    private final Integer chunkSize;
+    private final Integer capacity;
+    private final long timeout;
+
+    /**
+     * Create an ingest pipeline, whose stages wait at most one minute for each other
+     * @param executor the executor on which the pipeline stages run
+     * @param chunkSize the size of each chunk, in bytes
+     * @param capacity the maximum number of chunks queued between two stages
+     */
+    public IngestPipeline(final ExecutorService executor, final Integer chunkSize, final Integer capacity) {
+        this(executor, chunkSize, capacity, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Create an ingest pipeline
+     * @param executor the executor on which the pipeline stages run
+     * @param chunkSize the size of each chunk, in bytes
+     * @param capacity the maximum number of chunks queued between two stages
+     * @param timeout the longest time a stage waits to hand over or receive a chunk
+     */
+    public IngestPipeline(final ExecutorService executor, final Integer chunkSize, final Integer capacity,
+            final Duration timeout) {
+        requireNonNull(executor);
+        if (chunkSize < 1 || capacity < 1) {
+            throw new IllegalArgumentException("The chunk size and the capacity must be positive");
+        }
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Invalid timeout: " + timeout);
+        }
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.capacity = capacity;
+        this.timeout = timeout.toMillis();
+    }
+
+    /**
+     * Store binary content
+     *
+     * <p>Note: the digests are stored with the binary. The stream is read to the end, but it is
+     * not closed.</p>
+     *
+     * @param resolver the resolver
+     * @param partition the partition
+     * @param identifier the binary identifier
+     * @param stream the content
+     * @param metadata any user metadata
+     * @param algorithms the digest algorithms to compute
+     * @return the base64-encoded digest values of any supported algorithms, keyed by algorithm name
+     */
+    public Map<String, String> ingest(final BinaryService.Resolver resolver, final String partition,
+            final IRI identifier, final InputStream stream, final Map<String, String> metadata,
+            final Set<String> algorithms) {
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final BlockingQueue<byte[]> digestQueue = new ArrayBlockingQueue<>(capacity);
+        final BlockingQueue<byte[]> contentQueue = new ArrayBlockingQueue<>(capacity);
+        final List<Future<?>> tasks = new ArrayList<>();
+
+        final Future<Map<String, String>> digests = executor.submit(stage(failure, () ->
+                    DigestUtils.digest(algorithms, new QueueInputStream(digestQueue, timeout, failure))));
+        tasks.add(digests);
+        tasks.add(executor.submit(stage(failure, () -> {
+            try (final InputStream input = new QueueInputStream(contentQueue, timeout, failure)) {
+                resolver.setContent(partition, identifier, input, metadata);
+            }
+            return null;
+        })));
+
+        try {
+            read(stream, digestQueue, contentQueue, failure);
+            for (final Future<?> task : tasks) {
+                task.get();
+            }
+            final Map<String, String> result = digests.get();
+            if (!result.isEmpty()) {
+                resolver.setDigests(partition, identifier, result);
+            }
+            return result;
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, ex);
+            throw new RuntimeRepositoryException("Interrupted while storing " + identifier.getIRIString(), ex);
+        } catch (final ExecutionException | IOException | RuntimeException ex) {
+            failure.compareAndSet(null, ex);
+            throw new RuntimeRepositoryException("Error storing " + identifier.getIRIString(), failure.get());
+        } finally {
+            if (failure.get() != null) {
+                tasks.forEach(task -> task.cancel(true));
+            }
+        }
+    }
+
+    private void read(final InputStream stream, final BlockingQueue<byte[]> digestQueue,
+            final BlockingQueue<byte[]> contentQueue, final AtomicReference<Throwable> failure)
+            throws IOException, InterruptedException {
+        while (true) {
+            final byte[] buffer = new byte[chunkSize];
+            int size = 0;
+            int count = 0;
+            while (size < chunkSize && (count = stream.read(buffer, size, chunkSize - size)) >= 0) {
+                size += count;
+            }
+            if (size > 0) {
+                final byte[] chunk = size == chunkSize ? buffer : copyOf(buffer, size);
+                put(digestQueue, chunk, timeout, failure);
+                put(contentQueue, chunk, timeout, failure);
+            }
+            if (count < 0) {
+                put(digestQueue, END, timeout, failure);
+                put(contentQueue, END, timeout, failure);
+                return;
+            }
+        }
+    }
+
+    private static <T> Callable<T> stage(final AtomicReference<Throwable> failure, final Callable<T> task) {
+        return () -> {
+            try {
+                return task.call();
+            } catch (final Exception ex) {
+                failure.compareAndSet(null, ex);
+                throw ex;
+            }
+        };
+    }
+
+    private static void put(final BlockingQueue<byte[]> queue, final byte[] chunk, final long timeout,
+            final AtomicReference<Throwable> failure) throws IOException, InterruptedException {
+        final long deadline = System.nanoTime() + MILLISECONDS.toNanos(timeout);
+        while (!queue.offer(chunk, POLL_INTERVAL, MILLISECONDS)) {
+            check(deadline, failure);
+        }
+    }
+
+    private static void check(final long deadline, final AtomicReference<Throwable> failure) throws IOException {
+        if (failure.get() != null) {
+            throw new IOException("Ingest aborted", failure.get());
+        }
+        if (System.nanoTime() - deadline > 0L) {
+            final IOException ex = new IOException("Timed out waiting for another ingest stage");
+            failure.compareAndSet(null, ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * An InputStream over the chunks in a queue.
+     */
+    private static final class QueueInputStream extends InputStream {
+
+        private final BlockingQueue<byte[]> queue;
+        private final long timeout;
+        private final AtomicReference<Throwable> failure;
+        private byte[] chunk;
+        private int position;
+
+        private QueueInputStream(final BlockingQueue<byte[]> queue, final long timeout,
+                final AtomicReference<Throwable> failure) {
+            this.queue = queue;
+            this.timeout = timeout;
+            this.failure = failure;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (chunk != END && (chunk == null || position == chunk.length)) {
+                chunk = next();
+                position = 0;
+            }
+            if (chunk == END) {
+                return -1;
+            }
+            final int count = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        /**
+         * Consume any remaining chunks, so that an earlier stage is not left waiting on a reader
+         * that stopped before the end of the content.
+         */
+        @Override
+        public void close() throws IOException {
+            while (chunk != END) {
+                chunk = next();
+            }
+        }
+
+        private byte[] next() throws IOException {
+            try {
+                final long deadline = System.nanoTime() + MILLISECONDS.toNanos(timeout);
+                byte[] next;
+                while ((next = queue.poll(POLL_INTERVAL, MILLISECONDS)) == null) {
+                    check(deadline, failure);
+                }
+                return next;
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading content", ex);
+            }
+        }
+    }
+}
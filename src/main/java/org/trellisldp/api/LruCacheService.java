@@ -0,0 +1,311 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.lang.Integer.highestOneBit;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A size-bounded, in-memory {@link MutableCacheService} with optional time-based expiry.
+ *
+ * <p>The keys are distributed across independently locked segments, each of which evicts its
+ * least recently used entry once its share of the maximum size is exceeded. The shares add up to
+ * the maximum size, so the cache never holds more values than that. Values are computed
+ * outside of the segment lock, so a slow mapping function never delays lookups of other keys.
+ * Concurrent requests for a key that is being computed wait for that computation, so they still
+ * result in a single call to the mapping function. Null values are never cached, and an exception
+ * from the mapping function is passed to every waiting caller.</p>
+ *
+ * <p>Note: the mapping function must not look up the key that it is computing.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ *
+ * @author acoburn
+ */
+public class LruCacheService<K, V> implements MutableCacheService<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final long expireAfterWrite;
+    private final long expireAfterAccess;
+    private final Clock clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Create a size-bounded cache without time-based expiry
+     * @param maximumSize the maximum number of cached values
+     */
+    public LruCacheService(final Integer maximumSize) {
+        this(maximumSize, null, null);
+    }
+
+    /**
+     * Create a size-bounded cache
+     * @param maximumSize the maximum number of cached values
+     * @param expireAfterWrite how long a value remains valid after it is computed, or null for no limit
+     * @param expireAfterAccess how long a value remains valid after it was last read, or null for no limit
+     */
+    public LruCacheService(final Integer maximumSize, final Duration expireAfterWrite,
+            final Duration expireAfterAccess) {
+        this(maximumSize, expireAfterWrite, expireAfterAccess, Clock.systemUTC());
+    }
+
+    /**
+     * Create a size-bounded cache
+     * @param maximumSize the maximum number of cached values
+     * @param expireAfterWrite how long a value remains valid after it is computed, or null for no limit
+     * @param expireAfterAccess how long a value remains valid after it was last read, or null for no limit
+     * @param clock the clock used to measure expiry
+     */
+    @SuppressWarnings("unchecked")
+    public LruCacheService(final Integer maximumSize, final Duration expireAfterWrite,
+            final Duration expireAfterAccess, final Clock clock) {
+        requireNonNull(clock);
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Invalid maximum cache size: " + maximumSize);
+        }
+
+        final int count = highestOneBit(Math.min(MAX_SEGMENTS, maximumSize));
+        this.segments = (Segment<K, V>[]) new Segment<?, ?>[count];
+        for (int i = 0; i < count; ++i) {
+            // the remainder is spread over the first segments, so that the capacities sum to maximumSize
+            segments[i] = new Segment<>(maximumSize / count + (i < maximumSize % count ? 1 : 0));
+        }
+        this.expireAfterWrite = expireAfterWrite == null ? Long.MAX_VALUE : expireAfterWrite.toMillis();
+        this.expireAfterAccess = expireAfterAccess == null ? Long.MAX_VALUE : expireAfterAccess.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public V get(final K key, final Function<? super K, ? extends V> mappingFunction) {
+        requireNonNull(key);
+        final Segment<K, V> segment = segmentFor(key);
+        final long now = clock.millis();
+        final Entry<V> loading;
+        final CompletableFuture<V> pending;
+        synchronized (segment) {
+            final Entry<V> entry = segment.map.get(key);
+            pending = entry == null || entry.loaded ? null : entry.future;
+            if (pending != null) {
+                hits.increment();
+                loading = null;
+            } else if (entry != null && !isExpired(entry, now)) {
+                entry.accessed = now;
+                hits.increment();
+                return entry.future.getNow(null);
+            } else {
+                if (entry != null) {
+                    segment.map.remove(key);
+                    evictions.increment();
+                }
+                misses.increment();
+                loading = new Entry<>(now);
+                segment.map.put(key, loading);
+            }
+        }
+        if (pending != null) {
+            return await(pending);
+        }
+
+        final V value;
+        try {
+            value = mappingFunction.apply(key);
+        } catch (final RuntimeException | Error ex) {
+            synchronized (segment) {
+                segment.map.remove(key, loading);
+            }
+            loading.future.completeExceptionally(ex);
+            throw ex;
+        }
+
+        synchronized (segment) {
+            // the entry may have been invalidated or evicted while the value was computed
+            if (segment.map.get(key) == loading) {
+                if (value == null) {
+                    segment.map.remove(key);
+                } else {
+                    final long loaded = clock.millis();
+                    loading.loaded = true;
+                    loading.written = loaded;
+                    loading.accessed = loaded;
+                    evict(segment);
+                }
+            }
+        }
+        loading.future.complete(value);
+        return value;
+    }
+
+    @Override
+    public V getIfPresent(final K key) {
+        requireNonNull(key);
+        final Segment<K, V> segment = segmentFor(key);
+        final long now = clock.millis();
+        synchronized (segment) {
+            final Entry<V> entry = segment.map.get(key);
+            if (entry != null && entry.loaded) {
+                if (!isExpired(entry, now)) {
+                    entry.accessed = now;
+                    hits.increment();
+                    return entry.future.getNow(null);
+                }
+                segment.map.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        requireNonNull(key);
+        requireNonNull(value);
+        final Segment<K, V> segment = segmentFor(key);
+        final Entry<V> entry = new Entry<>(clock.millis());
+        entry.loaded = true;
+        entry.future.complete(value);
+        synchronized (segment) {
+            // this replaces an entry that is being computed, and that computation will not overwrite it
+            segment.map.put(key, entry);
+            evict(segment);
+        }
+    }
+
+    @Override
+    public void invalidate(final K key) {
+        requireNonNull(key);
+        final Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.map.remove(key);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (final Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.map.clear();
+            }
+        }
+    }
+
+    /**
+     * Get the number of cached values, including any that have expired but not yet been removed
+     * @return the number of cached values
+     */
+    public Long size() {
+        long size = 0L;
+        for (final Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Get the number of lookups that were answered from the cache
+     * @return the hit count
+     */
+    public Long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups that were not answered from the cache
+     * @return the miss count
+     */
+    public Long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of values removed because of the size bound or expiry
+     *
+     * <p>Note: explicit invalidation is not counted.</p>
+     *
+     * @return the eviction count
+     */
+    public Long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private void evict(final Segment<K, V> segment) {
+        final Iterator<Entry<V>> eldest = segment.map.values().iterator();
+        while (segment.map.size() > segment.capacity) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private Segment<K, V> segmentFor(final K key) {
+        final int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private static <V> V await(final CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            } else if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private boolean isExpired(final Entry<V> entry, final long now) {
+        return now - entry.written >= expireAfterWrite || now - entry.accessed >= expireAfterAccess;
+    }
+
+    private static final class Segment<K, V> {
+        private final Map<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacity;
+
+        private Segment(final int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private boolean loaded;
+        private long written;
+        private long accessed;
+
+        private Entry(final long now) {
+            this.written = now;
+            this.accessed = now;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+/**
+ * A {@link CacheService} whose values can be discarded before they expire
+ *
+ * <p>Services that cache values derived from mutable state, such as the
+ * {@link CachingResourceService}, require this type, so that a cache that cannot discard
+ * values is rejected when the service is built rather than serving stale data.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ *
+ * @author acoburn
+ */
+public interface MutableCacheService<K, V> extends CacheService<K, V> {
+
+    /**
+     * Discard any cached value for the key
+     * @param key the key
+     */
+    void invalidate(K key);
+
+    /**
+     * Discard all cached values
+     */
+    void invalidateAll();
+}
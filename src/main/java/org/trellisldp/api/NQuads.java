@@ -0,0 +1,244 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDFTerm;
+
+/**
+ * Reads and writes single quads in the N-Quads line format.
+ *
+ * <p>Only what is needed to read back the output of {@link #write} is supported: comments,
+ * relative IRIs and the other forms of the full grammar are rejected.</p>
+ *
+ * @author acoburn
+ */
+final class NQuads {
+
+    private final String line;
+    private int pos;
+
+    private NQuads(final String line, final int offset) {
+        this.line = line;
+        this.pos = offset;
+    }
+
+    /**
+     * Write a quad as a line of N-Quads
+     * @param quad the quad
+     * @param builder the builder to which the line is appended, without a line terminator
+     */
+    static void write(final Quad quad, final StringBuilder builder) {
+        write(quad.getSubject(), builder);
+        builder.append(' ');
+        write(quad.getPredicate(), builder);
+        builder.append(' ');
+        write(quad.getObject(), builder);
+        quad.getGraphName().ifPresent(graph -> {
+            builder.append(' ');
+            write(graph, builder);
+        });
+        builder.append(" .");
+    }
+
+    /**
+     * Parse a line of N-Quads
+     * @param line the string containing the line
+     * @param offset the position at which the quad starts
+     * @return the quad
+     * @throws IllegalArgumentException if the line is not a valid quad
+     */
+    static Quad parse(final String line, final int offset) {
+        final NQuads parser = new NQuads(line, offset);
+        final BlankNodeOrIRI subject = parser.subject();
+        final IRI predicate = parser.iri();
+        final RDFTerm object = parser.term();
+        final BlankNodeOrIRI graph = parser.peek() == '.' ? null : parser.subject();
+        if (parser.peek() != '.' || parser.skipWhitespace(parser.pos + 1) != line.length()) {
+            throw new IllegalArgumentException("Invalid N-Quads: " + line);
+        }
+        return getInstance().createQuad(graph, subject, predicate, object);
+    }
+
+    private static void write(final RDFTerm term, final StringBuilder builder) {
+        if (term instanceof Literal) {
+            final Literal literal = (Literal) term;
+            builder.append('"');
+            escape(literal.getLexicalForm(), builder);
+            builder.append('"');
+            if (literal.getLanguageTag().isPresent()) {
+                builder.append('@').append(literal.getLanguageTag().get());
+            } else if (!literal.getDatatype().getIRIString().equals("http://www.w3.org/2001/XMLSchema#string")) {
+                builder.append("^^");
+                write(literal.getDatatype(), builder);
+            }
+        } else {
+            builder.append(term.ntriplesString());
+        }
+    }
+
+    private static void escape(final String value, final StringBuilder builder) {
+        for (int i = 0; i < value.length(); ++i) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+    }
+
+    private char peek() {
+        pos = skipWhitespace(pos);
+        if (pos >= line.length()) {
+            throw new IllegalArgumentException("Unexpected end of N-Quads: " + line);
+        }
+        return line.charAt(pos);
+    }
+
+    private int skipWhitespace(final int start) {
+        int i = start;
+        while (i < line.length() && (line.charAt(i) == ' ' || line.charAt(i) == '\t')) {
+            ++i;
+        }
+        return i;
+    }
+
+    private RDFTerm term() {
+        return peek() == '"' ? literal() : subject();
+    }
+
+    private BlankNodeOrIRI subject() {
+        if (peek() == '_') {
+            if (!line.startsWith("_:", pos)) {
+                throw new IllegalArgumentException("Invalid blank node in N-Quads: " + line);
+            }
+            final int start = pos + 2;
+            int end = start;
+            while (end < line.length() && line.charAt(end) != ' ' && line.charAt(end) != '\t') {
+                ++end;
+            }
+            if (end == start) {
+                throw new IllegalArgumentException("Invalid blank node in N-Quads: " + line);
+            }
+            pos = end;
+            return getInstance().createBlankNode(line.substring(start, end));
+        }
+        return iri();
+    }
+
+    private IRI iri() {
+        if (peek() != '<') {
+            throw new IllegalArgumentException("Expected an IRI in N-Quads: " + line);
+        }
+        final int end = line.indexOf('>', pos);
+        if (end < 0) {
+            throw new IllegalArgumentException("Unterminated IRI in N-Quads: " + line);
+        }
+        final IRI iri = getInstance().createIRI(line.substring(pos + 1, end));
+        pos = end + 1;
+        return iri;
+    }
+
+    private Literal literal() {
+        final StringBuilder value = new StringBuilder();
+        int i = pos + 1;
+        while (true) {
+            if (i >= line.length()) {
+                throw new IllegalArgumentException("Unterminated literal in N-Quads: " + line);
+            }
+            final char c = line.charAt(i++);
+            if (c == '"') {
+                break;
+            } else if (c == '\\') {
+                i = unescape(i, value);
+            } else {
+                value.append(c);
+            }
+        }
+        pos = i;
+        if (line.startsWith("^^", pos)) {
+            pos += 2;
+            return getInstance().createLiteral(value.toString(), iri());
+        } else if (line.startsWith("@", pos)) {
+            final int start = pos + 1;
+            int end = start;
+            while (end < line.length() && (Character.isLetterOrDigit(line.charAt(end)) || line.charAt(end) == '-')) {
+                ++end;
+            }
+            pos = end;
+            return getInstance().createLiteral(value.toString(), line.substring(start, end));
+        }
+        return getInstance().createLiteral(value.toString());
+    }
+
+    private int unescape(final int start, final StringBuilder value) {
+        if (start >= line.length()) {
+            throw new IllegalArgumentException("Invalid escape in N-Quads: " + line);
+        }
+        final char c = line.charAt(start);
+        switch (c) {
+            case 't':
+                value.append('\t');
+                return start + 1;
+            case 'b':
+                value.append('\b');
+                return start + 1;
+            case 'n':
+                value.append('\n');
+                return start + 1;
+            case 'r':
+                value.append('\r');
+                return start + 1;
+            case 'f':
+                value.append('\f');
+                return start + 1;
+            case '"':
+            case '\'':
+            case '\\':
+                value.append(c);
+                return start + 1;
+            case 'u':
+                return codePoint(start + 1, 4, value);
+            case 'U':
+                return codePoint(start + 1, 8, value);
+            default:
+                throw new IllegalArgumentException("Invalid escape in N-Quads: " + line);
+        }
+    }
+
+    private int codePoint(final int start, final int length, final StringBuilder value) {
+        if (start + length > line.length()) {
+            throw new IllegalArgumentException("Invalid escape in N-Quads: " + line);
+        }
+        value.appendCodePoint(Integer.parseInt(line.substring(start, start + length), 16));
+        return start + length;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * A base class for resources whose storage is organized by named graph.
+ *
+ * <p>Subclasses supply a loader for a single named graph. The graph-specific {@link #stream(IRI)}
+ * and {@link #stream(Collection)} methods call that loader only for the requested graphs, so that,
+ * for instance, a request for user-managed triples never reads the audit graph.</p>
+ *
+ * @author acoburn
+ */
+public abstract class NamedGraphResource implements Resource {
+
+    /**
+     * Get the names of the graphs that hold data for this resource
+     * @return the graph names
+     */
+    protected abstract Collection<IRI> getGraphNames();
+
+    /**
+     * Load the RDF Triples for a single named graph
+     * @param graphName the named graph
+     * @return the RDF triples, or an empty stream if the graph holds no data for this resource
+     */
+    protected abstract Stream<? extends Triple> loadGraph(IRI graphName);
+
+    @Override
+    public Stream<? extends Quad> stream() {
+        return getGraphNames().stream().flatMap(graphName -> loadGraph(graphName).map(triple ->
+                    getInstance().createQuad(graphName, triple.getSubject(), triple.getPredicate(),
+                        triple.getObject())));
+    }
+
+    @Override
+    public Stream<? extends Triple> stream(final IRI graphName) {
+        return loadGraph(graphName);
+    }
+
+    @Override
+    public Stream<? extends Triple> stream(final Collection<IRI> graphNames) {
+        return graphNames.stream().distinct().flatMap(this::loadGraph);
+    }
+
+    @Override
+    public Boolean supportsGraphPushdown() {
+        return true;
+    }
+}
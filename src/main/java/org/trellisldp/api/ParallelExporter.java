@@ -0,0 +1,168 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * A parallel alternative to {@link ResourceService#export}.
+ *
+ * <p>The partition is divided into segments with {@link ResourceService#scanSegment}. Each segment
+ * is processed by a separate task on the supplied executor, which fetches resources in batches
+ * with {@link ResourceService#getAll} and serializes them as quads. The quads for each resource
+ * are handed to the calling thread through a bounded queue: once the queue is full, the workers
+ * wait for the consumer, which keeps memory use proportional to the queue capacity.</p>
+ *
+ * @author acoburn
+ */
+public class ParallelExporter {
+
+    private static final int BATCH_SIZE = 100;
+    private static final List<Quad> END = emptyList();
+
+    private final ResourceService service;
+    private final ExecutorService executor;
+    private final Integer segments;
+    private final Integer capacity;
+
+    /**
+     * Create a parallel exporter
+     * @param service the resource service
+     * @param executor the executor on which the segments are exported
+     * @param segments the number of segments into which the partition is divided
+     * @param capacity the maximum number of exported resources held in memory
+     */
+    public ParallelExporter(final ResourceService service, final ExecutorService executor, final Integer segments,
+            final Integer capacity) {
+        requireNonNull(service);
+        requireNonNull(executor);
+        if (segments < 1 || capacity < 1) {
+            throw new IllegalArgumentException("The number of segments and the capacity must be positive");
+        }
+        this.service = service;
+        this.executor = executor;
+        this.segments = segments;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Export a partition
+     * @param partition the partition to export
+     * @param graphNames the graph names to export
+     * @param consumer a consumer of quads, where each named graph refers to the resource identifier
+     * @return the number of exported resources
+     */
+    public Long export(final String partition, final Collection<IRI> graphNames, final Consumer<Quad> consumer) {
+        return export(partition, graphNames, consumer, count -> { });
+    }
+
+    /**
+     * Export a partition
+     *
+     * <p>Note: the consumer and the progress listener are only called from the calling thread.</p>
+     *
+     * @param partition the partition to export
+     * @param graphNames the graph names to export
+     * @param consumer a consumer of quads, where each named graph refers to the resource identifier
+     * @param progress a listener, notified with the number of resources exported so far
+     * @return the number of exported resources
+     */
+    public Long export(final String partition, final Collection<IRI> graphNames, final Consumer<Quad> consumer,
+            final LongConsumer progress) {
+        final BlockingQueue<List<Quad>> queue = new ArrayBlockingQueue<>(capacity);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<Future<?>> tasks = new ArrayList<>();
+        for (int segment = 0; segment < segments; ++segment) {
+            final Integer current = segment;
+            tasks.add(executor.submit(() -> exportSegment(partition, current, graphNames, queue, failure)));
+        }
+
+        long count = 0L;
+        int completed = 0;
+        try {
+            while (completed < segments) {
+                final List<Quad> quads = queue.take();
+                if (quads == END) {
+                    completed += 1;
+                    if (failure.get() != null) {
+                        throw new RuntimeRepositoryException("Error exporting partition " + partition, failure.get());
+                    }
+                } else {
+                    quads.forEach(consumer);
+                    count += 1;
+                    progress.accept(count);
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeRepositoryException("Interrupted while exporting partition " + partition, ex);
+        } finally {
+            if (completed < segments) {
+                tasks.forEach(task -> task.cancel(true));
+            }
+        }
+        return count;
+    }
+
+    private void exportSegment(final String partition, final Integer segment, final Collection<IRI> graphNames,
+            final BlockingQueue<List<Quad>> queue, final AtomicReference<Throwable> failure) {
+        try {
+            final Iterator<IRI> subjects = service.scanSegment(partition, segment, segments)
+                .map(Triple::getSubject).filter(x -> x instanceof IRI).map(x -> (IRI) x).iterator();
+            final List<IRI> batch = new ArrayList<>(BATCH_SIZE);
+            while (subjects.hasNext()) {
+                batch.add(subjects.next());
+                if (batch.size() == BATCH_SIZE || !subjects.hasNext()) {
+                    for (final Resource resource : service.getAll(batch).collect(toList())) {
+                        queue.put(resource.stream(graphNames).map(triple -> getInstance().createQuad(
+                                    resource.getIdentifier(), triple.getSubject(), triple.getPredicate(),
+                                    triple.getObject())).collect(toList()));
+                    }
+                    batch.clear();
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (final Throwable ex) {
+            // an Error is recorded as well, since export() waits for every segment to end
+            failure.compareAndSet(null, ex);
+        }
+
+        try {
+            queue.put(END);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.lang.Integer.highestOneBit;
+import static java.util.Collections.nCopies;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * An immutable index of {@link BinaryService.Resolver}s by URI scheme.
+ *
+ * <p>A {@link BinaryService} implementation can build a registry once from its resolvers and use
+ * {@link #getResolver(IRI)} to implement {@link BinaryService#getResolver}. The lookup hashes the
+ * scheme in place and compares it case-insensitively against an open-addressing table, so it runs
+ * in constant time and does not allocate.</p>
+ *
+ * @author acoburn
+ */
+public final class ResolverRegistry {
+
+    private final String[] schemes;
+    private final List<Optional<BinaryService.Resolver>> resolvers;
+    private final int mask;
+
+    /**
+     * Create a resolver registry
+     *
+     * <p>Note: if more than one resolver supports a scheme, the first one is used.</p>
+     *
+     * @param resolvers the resolvers
+     */
+    public ResolverRegistry(final Collection<? extends BinaryService.Resolver> resolvers) {
+        requireNonNull(resolvers);
+        final int size = resolvers.stream().mapToInt(resolver -> resolver.getUriSchemes().size()).sum();
+        final int capacity = Math.max(2, highestOneBit(Math.max(1, size) * 4 - 1) << 1);
+        this.schemes = new String[capacity];
+        this.resolvers = new ArrayList<>(nCopies(capacity, empty()));
+        this.mask = capacity - 1;
+        for (final BinaryService.Resolver resolver : resolvers) {
+            final Optional<BinaryService.Resolver> value = of(resolver);
+            for (final String scheme : resolver.getUriSchemes()) {
+                final String key = scheme.toLowerCase(Locale.ROOT);
+                int slot = hash(key, key.length()) & mask;
+                while (schemes[slot] != null && !schemes[slot].equals(key)) {
+                    slot = (slot + 1) & mask;
+                }
+                if (schemes[slot] == null) {
+                    schemes[slot] = key;
+                    this.resolvers.set(slot, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the resolver for a binary identifier
+     * @param identifier the binary identifier
+     * @return the resolver for the scheme of the identifier, if one exists
+     */
+    public Optional<BinaryService.Resolver> getResolver(final IRI identifier) {
+        return getResolver(identifier.getIRIString());
+    }
+
+    /**
+     * Get the resolver for a binary location
+     * @param iri the IRI string
+     * @return the resolver for the scheme of the IRI, if one exists
+     */
+    public Optional<BinaryService.Resolver> getResolver(final String iri) {
+        final int length = schemeLength(iri);
+        if (length < 1) {
+            return empty();
+        }
+        int slot = hash(iri, length) & mask;
+        String scheme;
+        while ((scheme = schemes[slot]) != null) {
+            if (scheme.length() == length && iri.regionMatches(true, 0, scheme, 0, length)) {
+                return resolvers.get(slot);
+            }
+            slot = (slot + 1) & mask;
+        }
+        return empty();
+    }
+
+    /**
+     * Get the URI schemes in this registry
+     * @return the lower-case URI schemes
+     */
+    public Set<String> getUriSchemes() {
+        final Set<String> supported = new LinkedHashSet<>();
+        for (final String scheme : schemes) {
+            if (scheme != null) {
+                supported.add(scheme);
+            }
+        }
+        return unmodifiableSet(supported);
+    }
+
+    private static int schemeLength(final String iri) {
+        for (int i = 0; i < iri.length(); ++i) {
+            final char c = iri.charAt(i);
+            if (c == ':') {
+                return i;
+            } else if (c == '/' || c == '?' || c == '#') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int hash(final String value, final int length) {
+        int h = 0;
+        for (int i = 0; i < length; ++i) {
+            final char c = value.charAt(i);
+            h = 31 * h + (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -122,6 +122,19 @@ public interface Resource {
             .map(Quad::asTriple);
     }
 
+    /**
+     * Test whether the graph-specific stream methods read only the requested named graphs from storage
+     *
+     * <p>Note: the default {@link #stream(Collection)} implementation reads every quad and filters
+     * by graph name in memory, so this returns false unless overridden.</p>
+     *
+     * @return true if named graphs are selected at the storage level; false otherwise
+     * @see NamedGraphResource
+     */
+    default Boolean supportsGraphPushdown() {
+        return false;
+    }
+
     /**
      * Retrieve a Binary for this resouce, if it is a LDP-NR
      *
@@ -13,15 +13,23 @@
  */
 package org.trellisldp.api;
 
+import static java.lang.Long.parseLong;
+import static java.lang.Math.floorMod;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Base64.getUrlDecoder;
+import static java.util.Base64.getUrlEncoder;
 import static java.util.Optional.of;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.stream.Collectors.toList;
 import static org.trellisldp.api.RDFUtils.TRELLIS_BNODE_PREFIX;
 import static org.trellisldp.api.RDFUtils.TRELLIS_PREFIX;
 import static org.trellisldp.api.RDFUtils.getInstance;
 
 import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -55,14 +63,55 @@ public interface ResourceService {
      */
     Optional<Resource> get(IRI identifier, Instant time);
 
+    /**
+     * Asynchronously get a resource from the given location
+     *
+     * <p>Note: the default implementation runs {@link #get(IRI)} in the common fork-join pool.
+     * Implementations with a non-blocking backend should override this method.</p>
+     *
+     * @param identifier the resource identifier
+     * @return the resource, once it has been retrieved
+     */
+    default CompletableFuture<Optional<Resource>> getAsync(final IRI identifier) {
+        return supplyAsync(() -> get(identifier));
+    }
+
+    /**
+     * Asynchronously get a resource from the given location and time
+     *
+     * <p>Note: the default implementation runs {@link #get(IRI, Instant)} in the common fork-join pool.
+     * Implementations with a non-blocking backend should override this method.</p>
+     *
+     * @param identifier the resource identifier
+     * @param time the time
+     * @return the resource, once it has been retrieved
+     */
+    default CompletableFuture<Optional<Resource>> getAsync(final IRI identifier, final Instant time) {
+        return supplyAsync(() -> get(identifier, time));
+    }
+
+    /**
+     * Get a collection of resources
+     *
+     * <p>Note: the default implementation retrieves each resource individually. Implementations
+     * that are able to fetch many resources in a single backend request should override this method.
+     * Identifiers that do not resolve to a resource are omitted from the result.</p>
+     *
+     * @param identifiers the resource identifiers
+     * @return a stream of resources
+     */
+    default Stream<Resource> getAll(final Collection<IRI> identifiers) {
+        return identifiers.stream().map(this::get).filter(Optional::isPresent).map(Optional::get);
+    }
+
     /**
      * Put a resource into the repository
      * @param identifier the identifier for the new resource
      * @param ixnModel the LDP interaction model for this resource
      * @param dataset the dataset
-     * @return whether the resource was added
+     * @return whether the resource was added, once the operation has completed
      */
-    Future<Boolean> put(IRI identifier, IRI ixnModel, Dataset dataset);
+    CompletableFuture<Boolean> put(IRI identifier, IRI ixnModel, Dataset dataset);
 
     /**
      * Get the identifier for the structurally-logical container for the resource
@@ -100,6 +149,63 @@ public interface ResourceService {
      */
     Stream<? extends Triple> scan(String partition);
 
+    /**
+     * Scan a single page of the resources in the partition
+     *
+     * <p>Passing the continuation token of one page to a subsequent call resumes the scan immediately
+     * after that page, even from a different process. A null cursor starts at the beginning.</p>
+     *
+     * <p>Note: the default implementation encodes the position of the next page as an offset into
+     * {@link #scan(String)} and skips to it on each call; it therefore relies on a stable scan order.
+     * Implementations should override this with a native cursor.</p>
+     *
+     * @param partition the partition
+     * @param cursor a continuation token from a previous page, or null to start a new scan
+     * @param size the maximum number of triples in the page
+     * @return a page of RDF Triples, each containing a resource and its LDP type
+     */
+    default ScanPage scan(final String partition, final String cursor, final Integer size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Invalid page size: " + size);
+        }
+        final long offset;
+        try {
+            offset = cursor == null ? 0L : parseLong(new String(getUrlDecoder().decode(cursor), UTF_8));
+        } catch (final IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid continuation token: " + cursor, ex);
+        }
+        if (offset < 0L) {
+            throw new IllegalArgumentException("Invalid continuation token: " + cursor);
+        }
+
+        final List<Triple> triples = scan(partition).skip(offset).limit(size + 1L).collect(toList());
+        if (triples.size() > size) {
+            return new ScanPage(triples.subList(0, size),
+                    getUrlEncoder().withoutPadding().encodeToString(Long.toString(offset + size).getBytes(UTF_8)));
+        }
+        return new ScanPage(triples, null);
+    }
+
+    /**
+     * Scan a single segment of the resources in the partition
+     *
+     * <p>Each resource belongs to exactly one of the {@code segments} segments, so that
+     * the segments may be scanned independently and in parallel.</p>
+     *
+     * <p>Note: the default implementation assigns resources to segments by the hash of their
+     * identifier and filters the complete {@link #scan(String)} output, so each segment still
+     * reads the entire partition. Implementations should override this with a range-based scan.</p>
+     *
+     * @param partition the partition
+     * @param segment the zero-based segment number
+     * @param segments the total number of segments
+     * @return a stream of RDF Triples, containing the resource and its LDP type
+     */
+    default Stream<? extends Triple> scanSegment(final String partition, final Integer segment,
+            final Integer segments) {
+        return scan(partition).filter(triple -> floorMod(triple.getSubject().hashCode(), segments) == segment);
+    }
+
     /**
      * Skolemize a blank node
      * @param term the RDF term
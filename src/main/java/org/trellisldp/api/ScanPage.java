@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.ofNullable;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * A single page of results from a resumable scan of a partition.
+ *
+ * <p>The continuation token is opaque: it may be persisted by a client and later passed back to
+ * {@link ResourceService#scan(String, String, Integer)} in order to resume the scan after the
+ * last triple of this page.</p>
+ *
+ * @author acoburn
+ */
+public class ScanPage {
+
+    private final List<Triple> triples;
+    private final String continuation;
+
+    /**
+     * Create a page of scan results
+     * @param triples the triples in this page
+     * @param continuation a token for retrieving the next page, or null if this is the last page
+     */
+    public ScanPage(final List<Triple> triples, final String continuation) {
+        requireNonNull(triples);
+
+        this.triples = unmodifiableList(triples);
+        this.continuation = continuation;
+    }
+
+    /**
+     * Retrieve the triples in this page, each containing a resource and its LDP type
+     * @return the triples
+     */
+    public List<Triple> getTriples() {
+        return triples;
+    }
+
+    /**
+     * Retrieve the token for the next page, if one exists
+     * @return the continuation token
+     */
+    public Optional<String> getContinuation() {
+        return ofNullable(continuation);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Optional.of;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Optional;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * An {@link ActivityStreamService} that writes JSON-LD directly to a {@link Writer}.
+ *
+ * <p>The fixed parts of each message, including the {@code @context}, are held as constants,
+ * and the encoded form of each type IRI is cached, so a message is written without building
+ * intermediate strings or a document model. A message has the following form, where
+ * Activity Stream types are written as terms and other types as full IRIs:</p>
+ *
+ * <pre>{@code
+ * {"@context":"https://www.w3.org/ns/activitystreams","id":"urn:uuid:...","type":["Update"],
+ *  "actor":["https://example.com/user"],
+ *  "object":{"id":"https://example.com/resource","type":["http://www.w3.org/ns/ldp#RDFSource"],
+ *            "inbox":"https://example.com/inbox"},
+ *  "published":"2017-11-01T12:00:00Z"}
+ * }</pre>
+ *
+ * <p>The {@code actor} and {@code object} members, and the {@code type} and {@code inbox} members
+ * of the object, are omitted when the event has no corresponding values.</p>
+ *
+ * @author acoburn
+ */
+public class StreamingActivityStreamService implements ActivityStreamService {
+
+    private static final String AS_NAMESPACE = "https://www.w3.org/ns/activitystreams#";
+    private static final String START = "{\"@context\":\"https://www.w3.org/ns/activitystreams\",\"id\":";
+    private static final String TYPE = ",\"type\":[";
+    private static final String ACTOR = ",\"actor\":[";
+    private static final String OBJECT = ",\"object\":{\"id\":";
+    private static final String INBOX = ",\"inbox\":";
+    private static final String PUBLISHED = ",\"published\":\"";
+    private static final Integer DEFAULT_CACHE_SIZE = 1000;
+
+    private final CacheService<IRI, String> types;
+
+    /**
+     * Create a streaming activity stream serializer
+     */
+    public StreamingActivityStreamService() {
+        this(new LruCacheService<>(DEFAULT_CACHE_SIZE));
+    }
+
+    /**
+     * Create a streaming activity stream serializer
+     * @param cache a cache for the encoded form of type IRIs
+     */
+    public StreamingActivityStreamService(final CacheService<IRI, String> cache) {
+        this.types = cache;
+    }
+
+    @Override
+    public Optional<String> serialize(final Event event) {
+        final StringWriter writer = new StringWriter();
+        serialize(event, writer);
+        return of(writer.toString());
+    }
+
+    @Override
+    public Boolean serialize(final Event event, final Writer writer) {
+        try {
+            write(event, writer);
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error writing activity stream message", ex);
+        }
+        return true;
+    }
+
+    @Override
+    public Integer serializeAll(final Collection<? extends Event> events, final Writer writer) {
+        int count = 0;
+        try {
+            writer.write('[');
+            final Iterator<? extends Event> iterator = events.iterator();
+            while (iterator.hasNext()) {
+                if (count > 0) {
+                    writer.write(',');
+                }
+                write(iterator.next(), writer);
+                count += 1;
+            }
+            writer.write(']');
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error writing activity stream messages", ex);
+        }
+        return count;
+    }
+
+    private void write(final Event event, final Writer writer) throws IOException {
+        writer.write(START);
+        writeString(event.getIdentifier().getIRIString(), writer);
+        writer.write(TYPE);
+        writeTypes(event.getTypes(), writer);
+        writer.write(']');
+        if (!event.getAgents().isEmpty()) {
+            writer.write(ACTOR);
+            boolean first = true;
+            for (final IRI agent : event.getAgents()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                writeString(agent.getIRIString(), writer);
+                first = false;
+            }
+            writer.write(']');
+        }
+        if (event.getTarget().isPresent()) {
+            writer.write(OBJECT);
+            writeString(event.getTarget().get().getIRIString(), writer);
+            if (!event.getTargetTypes().isEmpty()) {
+                writer.write(TYPE);
+                writeTypes(event.getTargetTypes(), writer);
+                writer.write(']');
+            }
+            if (event.getInbox().isPresent()) {
+                writer.write(INBOX);
+                writeString(event.getInbox().get().getIRIString(), writer);
+            }
+            writer.write('}');
+        }
+        writer.write(PUBLISHED);
+        writer.write(event.getCreated().toString());
+        writer.write("\"}");
+    }
+
+    private void writeTypes(final Collection<IRI> iris, final Writer writer) throws IOException {
+        boolean first = true;
+        for (final IRI iri : iris) {
+            if (!first) {
+                writer.write(',');
+            }
+            writer.write(types.get(iri, StreamingActivityStreamService::encodeType));
+            first = false;
+        }
+    }
+
+    private static String encodeType(final IRI type) {
+        final String iri = type.getIRIString();
+        final StringWriter writer = new StringWriter();
+        try {
+            writeString(iri.startsWith(AS_NAMESPACE) ? iri.substring(AS_NAMESPACE.length()) : iri, writer);
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException("Error encoding " + iri, ex);
+        }
+        return writer.toString();
+    }
+
+    private static void writeString(final String value, final Writer writer) throws IOException {
+        writer.write('"');
+        int start = 0;
+        final int length = value.length();
+        for (int i = 0; i < length; ++i) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                writer.write(value, start, i - start);
+                writeEscaped(c, writer);
+                start = i + 1;
+            }
+        }
+        writer.write(value, start, length - start);
+        writer.write('"');
+    }
+
+    private static void writeEscaped(final char c, final Writer writer) throws IOException {
+        switch (c) {
+            case '"':
+                writer.write("\\\"");
+                break;
+            case '\\':
+                writer.write("\\\\");
+                break;
+            case '\n':
+                writer.write("\\n");
+                break;
+            case '\r':
+                writer.write("\\r");
+                break;
+            case '\t':
+                writer.write("\\t");
+                break;
+            case '\b':
+                writer.write("\\b");
+                break;
+            case '\f':
+                writer.write("\\f");
+                break;
+            default:
+                writer.write("\\u00");
+                writer.write(Character.forDigit(c >> 4, 16));
+                writer.write(Character.forDigit(c & 0xf, 16));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Objects.requireNonNull;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * An {@link IdentifierService} that generates time-ordered identifiers.
+ *
+ * <p>Each identifier ends with a 26-character <a href="https://github.com/ulid/spec">ULID</a>:
+ * a millisecond timestamp followed by 80 random bits, in Crockford's base32. Identifiers from one
+ * generator are strictly increasing, even within a millisecond or if the clock moves backwards,
+ * so new keys are appended to the end of a B-tree or LSM keyspace rather than scattered across
+ * it. The generator state is updated with a compare-and-set, so it is safe for concurrent use
+ * without locks.</p>
+ *
+ * <p>An optional shard string, such as a node name, is placed before the ULID, which keeps the
+ * identifiers from each shard together. If a hierarchy is requested, its levels are taken from
+ * the trailing characters of the ULID, which belong to its random component, so the path to an
+ * identifier can be derived from the ULID and identifiers are spread evenly over the levels.
+ * Taking them from the timestamp instead would put every identifier minted within about half a
+ * minute into the same leaf. The hierarchy may therefore cover at most 16 characters, and only
+ * the ULIDs themselves, not the full identifiers, are ordered by time.</p>
+ *
+ * <p>Note: the timestamp reveals when a resource was created.</p>
+ *
+ * @author acoburn
+ */
+public class ULIDGenerator implements IdentifierService {
+
+    private static final int LENGTH = 26;
+    private static final int TIME_LENGTH = 10;
+    private static final int RANDOM_LENGTH = LENGTH - TIME_LENGTH;
+    private static final char[] ENCODING = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final long HIGH_MASK = 0xffffL;
+
+    private final char[] shard;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicReference<State> state = new AtomicReference<>(new State(0L, 0L, 0L));
+
+    /**
+     * Create a ULID generator without a shard
+     */
+    public ULIDGenerator() {
+        this("");
+    }
+
+    /**
+     * Create a ULID generator
+     * @param shard a string placed before each ULID, or an empty string
+     */
+    public ULIDGenerator(final String shard) {
+        this(shard, Clock.systemUTC());
+    }
+
+    /**
+     * Create a ULID generator
+     * @param shard a string placed before each ULID, or an empty string
+     * @param clock the clock used for the timestamps
+     */
+    public ULIDGenerator(final String shard, final Clock clock) {
+        requireNonNull(shard);
+        requireNonNull(clock);
+        if (shard.indexOf('/') >= 0) {
+            throw new IllegalArgumentException("Invalid shard: " + shard);
+        }
+        this.shard = shard.toCharArray();
+        this.clock = clock;
+    }
+
+    @Override
+    public Supplier<String> getSupplier(final String prefix, final Integer hierarchy, final Integer length) {
+        requireNonNull(prefix);
+        if (hierarchy < 0 || (hierarchy > 0 && (length < 1 || hierarchy * length > RANDOM_LENGTH))) {
+            throw new IllegalArgumentException("Invalid hierarchy: " + hierarchy + " levels of length " + length);
+        }
+        final char[] start = prefix.toCharArray();
+        final int levels = hierarchy;
+        final int size = hierarchy > 0 ? length : 0;
+        return () -> generate(start, levels, size);
+    }
+
+    @Override
+    public Supplier<String> getSupplier(final String prefix) {
+        return getSupplier(prefix, 0, 0);
+    }
+
+    @Override
+    public Supplier<String> getSupplier() {
+        return getSupplier("");
+    }
+
+    private String generate(final char[] prefix, final int hierarchy, final int length) {
+        final char[] ulid = new char[LENGTH];
+        encode(next(), ulid);
+
+        final char[] id = new char[prefix.length + hierarchy * (length + 1) + shard.length + LENGTH];
+        System.arraycopy(prefix, 0, id, 0, prefix.length);
+        int pos = prefix.length;
+        final int start = LENGTH - hierarchy * length;
+        for (int level = 0; level < hierarchy; ++level) {
+            System.arraycopy(ulid, start + level * length, id, pos, length);
+            pos += length;
+            id[pos++] = '/';
+        }
+        System.arraycopy(shard, 0, id, pos, shard.length);
+        System.arraycopy(ulid, 0, id, pos + shard.length, LENGTH);
+        return new String(id);
+    }
+
+    private State next() {
+        while (true) {
+            final State previous = state.get();
+            final long now = clock.millis();
+            final State current;
+            if (now > previous.time) {
+                current = new State(now, random.nextInt() & HIGH_MASK, random.nextLong());
+            } else if (previous.low != -1L) {
+                current = new State(previous.time, previous.high, previous.low + 1L);
+            } else if (previous.high != HIGH_MASK) {
+                current = new State(previous.time, previous.high + 1L, 0L);
+            } else {
+                // the random component is exhausted for this millisecond, so borrow the next one
+                current = new State(previous.time + 1L, 0L, 0L);
+            }
+            if (state.compareAndSet(previous, current)) {
+                return current;
+            }
+        }
+    }
+
+    private static void encode(final State value, final char[] ulid) {
+        long time = value.time;
+        for (int i = TIME_LENGTH - 1; i >= 0; --i) {
+            ulid[i] = ENCODING[(int) (time & 0x1f)];
+            time >>>= 5;
+        }
+        for (int i = 0; i < RANDOM_LENGTH; ++i) {
+            final int shift = 75 - 5 * i;
+            final long bits;
+            if (shift >= 64) {
+                bits = value.high >>> (shift - 64);
+            } else if (shift > 59) {
+                bits = (value.low >>> shift) | (value.high << (64 - shift));
+            } else {
+                bits = value.low >>> shift;
+            }
+            ulid[TIME_LENGTH + i] = ENCODING[(int) (bits & 0x1f)];
+        }
+    }
+
+    /**
+     * The timestamp and 80-bit random component of the most recent ULID.
+     */
+    private static final class State {
+        private final long time;
+        private final long high;
+        private final long low;
+
+        private State(final long time, final long high, final long low) {
+            this.time = time;
+            this.high = high;
+            this.low = low;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Periodically removes the staged parts of expired multipart uploads from a {@link FileResolver}.
+ *
+ * <p>The reaper runs on a single daemon thread, and each run is scheduled only after the previous
+ * one finishes, so a slow file system never causes runs to pile up. A failed run, including one
+ * whose listener throws, does not stop later runs; it is counted and passed to an optional failure
+ * listener instead. Expired sessions are forgotten as soon as a
+ * run picks them up, so if their staged parts could not be removed, those directories are only
+ * reclaimed by a later run as orphans, once they have not been modified for the upload timeout.</p>
+ *
+ * @author acoburn
+ */
+public class UploadReaper implements AutoCloseable {
+
+    private final FileResolver resolver;
+    private final LongConsumer listener;
+    private final Consumer<RuntimeException> failureListener;
+    private final ScheduledExecutorService scheduler;
+    private final LongAdder reclaimed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Create and start an upload reaper
+     * @param resolver the file resolver
+     * @param interval the time between runs
+     */
+    public UploadReaper(final FileResolver resolver, final Duration interval) {
+        this(resolver, interval, bytes -> { });
+    }
+
+    /**
+     * Create and start an upload reaper
+     * @param resolver the file resolver
+     * @param interval the time between runs
+     * @param listener a consumer notified with the number of bytes reclaimed by each run
+     */
+    public UploadReaper(final FileResolver resolver, final Duration interval, final LongConsumer listener) {
+        this(resolver, interval, listener, ex -> { });
+    }
+
+    /**
+     * Create and start an upload reaper
+     * @param resolver the file resolver
+     * @param interval the time between runs
+     * @param listener a consumer notified with the number of bytes reclaimed by each run
+     * @param failureListener a consumer notified with the exception of each failed scheduled run
+     */
+    public UploadReaper(final FileResolver resolver, final Duration interval, final LongConsumer listener,
+            final Consumer<RuntimeException> failureListener) {
+        requireNonNull(resolver);
+        requireNonNull(listener);
+        requireNonNull(failureListener);
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Invalid interval: " + interval);
+        }
+        this.resolver = resolver;
+        this.listener = listener;
+        this.failureListener = failureListener;
+        this.scheduler = newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "trellis-upload-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, interval.toMillis(), interval.toMillis(), MILLISECONDS);
+    }
+
+    /**
+     * Remove the staged parts of expired uploads immediately
+     * @return the number of bytes reclaimed
+     */
+    public synchronized Long reap() {
+        final Long bytes = resolver.reapExpiredUploads();
+        reclaimed.add(bytes);
+        listener.accept(bytes);
+        return bytes;
+    }
+
+    /**
+     * Get the total number of bytes reclaimed by this reaper
+     * @return the number of bytes
+     */
+    public Long getReclaimedBytes() {
+        return reclaimed.sum();
+    }
+
+    /**
+     * Get the number of scheduled runs that failed
+     * @return the number of failed runs
+     */
+    public Long getFailureCount() {
+        return failures.sum();
+    }
+
+    private void run() {
+        // an exception escaping this task would cancel every later run
+        try {
+            reap();
+        } catch (final RuntimeException ex) {
+            failures.increment();
+            try {
+                failureListener.accept(ex);
+            } catch (final RuntimeException ignored) {
+                // a failing listener must not stop the reaper either
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry of multipart upload sessions that expire after a period of inactivity.
+ *
+ * <p>Each successful {@link #get} renews the session, so an upload only expires once no part has
+ * been sent for the configured time-to-live. Expired sessions are no longer visible through
+ * {@link #get} or {@link #contains}, but they remain registered until {@link #expire} removes
+ * them, which gives the owner of the sessions a chance to clean up any staged content.</p>
+ *
+ * @param <T> the session type
+ *
+ * @author acoburn
+ */
+public class UploadSessionRegistry<T> {
+
+    private final Map<String, Entry<T>> sessions = new ConcurrentHashMap<>();
+    private final Duration timeToLive;
+    private final Clock clock;
+
+    /**
+     * Create a registry
+     * @param timeToLive how long a session remains valid after it was last used, or null for no limit
+     */
+    public UploadSessionRegistry(final Duration timeToLive) {
+        this(timeToLive, Clock.systemUTC());
+    }
+
+    /**
+     * Create a registry
+     * @param timeToLive how long a session remains valid after it was last used, or null for no limit
+     * @param clock the clock used to measure expiry
+     */
+    public UploadSessionRegistry(final Duration timeToLive, final Clock clock) {
+        requireNonNull(clock);
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+    /**
+     * Register a new session
+     * @param identifier the upload identifier
+     * @param session the session
+     */
+    public void register(final String identifier, final T session) {
+        requireNonNull(session);
+        sessions.put(identifier, new Entry<>(session, clock.millis()));
+    }
+
+    /**
+     * Get a session, renewing its time-to-live
+     * @param identifier the upload identifier
+     * @return the session, if it exists and has not expired
+     */
+    public Optional<T> get(final String identifier) {
+        final Entry<T> entry = sessions.get(identifier);
+        if (entry == null || isExpired(entry.lastAccess)) {
+            return empty();
+        }
+        entry.lastAccess = clock.millis();
+        return of(entry.session);
+    }
+
+    /**
+     * Test whether a session exists, without renewing it
+     * @param identifier the upload identifier
+     * @return true if the session exists and has not expired; false otherwise
+     */
+    public Boolean contains(final String identifier) {
+        final Entry<T> entry = sessions.get(identifier);
+        return entry != null && !isExpired(entry.lastAccess);
+    }
+
+    /**
+     * Remove a session, whether or not it has expired
+     * @param identifier the upload identifier
+     * @return the session, if it was registered
+     */
+    public Optional<T> remove(final String identifier) {
+        final Entry<T> entry = sessions.remove(identifier);
+        return entry == null ? empty() : of(entry.session);
+    }
+
+    /**
+     * Remove all expired sessions
+     * @return the expired sessions, keyed by upload identifier
+     */
+    public Map<String, T> expire() {
+        final Map<String, T> expired = new HashMap<>();
+        sessions.forEach((identifier, entry) -> {
+            if (isExpired(entry.lastAccess) && sessions.remove(identifier, entry)) {
+                expired.put(identifier, entry.session);
+            }
+        });
+        return expired;
+    }
+
+    /**
+     * Test whether something last used at the given time would have expired
+     * @param lastAccess the time of last use
+     * @return true if the time-to-live has elapsed since then; false otherwise
+     */
+    public Boolean isExpired(final Instant lastAccess) {
+        return isExpired(lastAccess.toEpochMilli());
+    }
+
+    /**
+     * Get the number of registered sessions, including any that have expired but not yet been removed
+     * @return the number of sessions
+     */
+    public Integer size() {
+        return sessions.size();
+    }
+
+    private boolean isExpired(final long lastAccess) {
+        return timeToLive != null && clock.millis() - lastAccess >= timeToLive.toMillis();
+    }
+
+    private static final class Entry<T> {
+        private final T session;
+        private volatile long lastAccess;
+
+        private Entry(final T session, final long lastAccess) {
+            this.session = session;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
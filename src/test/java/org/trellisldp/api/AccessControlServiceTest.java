@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.vocabulary.ACL;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AccessControlServiceTest {
+
+    private static final RDF rdf = new SimpleRDF();
+
+    private final IRI readable = rdf.createIRI("trellis:repository/readable");
+    private final IRI hidden = rdf.createIRI("trellis:repository/hidden");
+
+    @Mock
+    private AccessControlService mockAccessControlService;
+
+    @Mock
+    private Session mockSession;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        doCallRealMethod().when(mockAccessControlService).getAllAccessModes(any(), any());
+        when(mockAccessControlService.getAccessModes(eq(readable), eq(mockSession))).thenReturn(singleton(ACL.Read));
+        when(mockAccessControlService.getAccessModes(eq(hidden), eq(mockSession))).thenReturn(emptySet());
+    }
+
+    @Test
+    public void testGetAllAccessModes() {
+        final Map<IRI, Set<IRI>> modes = mockAccessControlService.getAllAccessModes(asList(readable, hidden),
+                mockSession);
+        assertEquals(2, modes.size());
+        assertEquals(singleton(ACL.Read), modes.get(readable));
+        assertEquals(emptySet(), modes.get(hidden));
+    }
+}
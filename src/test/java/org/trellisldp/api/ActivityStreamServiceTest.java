@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class ActivityStreamServiceTest {
+
+    @Mock
+    private ActivityStreamService mockService;
+
+    @Mock
+    private Event mockEvent1;
+
+    @Mock
+    private Event mockEvent2;
+
+    @Mock
+    private Event mockEvent3;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        doCallRealMethod().when(mockService).serialize(any(Event.class), any(Writer.class));
+        doCallRealMethod().when(mockService).serializeAll(any(), any(Writer.class));
+        doCallRealMethod().when(mockService).serializeAll(any(), any(OutputStream.class));
+        when(mockService.serialize(eq(mockEvent1))).thenReturn(of("{\"id\":1}"));
+        when(mockService.serialize(eq(mockEvent2))).thenReturn(empty());
+        when(mockService.serialize(eq(mockEvent3))).thenReturn(of("{\"id\":3}"));
+    }
+
+    @Test
+    public void testSerializeToWriter() {
+        final StringWriter writer = new StringWriter();
+        assertTrue(mockService.serialize(mockEvent1, writer));
+        assertFalse(mockService.serialize(mockEvent2, writer));
+        assertEquals("{\"id\":1}", writer.toString());
+    }
+
+    @Test
+    public void testSerializeAll() {
+        final Collection<Event> events = asList(mockEvent1, mockEvent2, mockEvent3);
+        final StringWriter writer = new StringWriter();
+        assertEquals((Integer) 2, mockService.serializeAll(events, writer));
+        assertEquals("[{\"id\":1},{\"id\":3}]", writer.toString());
+
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        assertEquals((Integer) 2, mockService.serializeAll(events, stream));
+        assertEquals("[{\"id\":1},{\"id\":3}]", new String(stream.toByteArray(), UTF_8));
+    }
+
+    @Test
+    public void testSerializeAllToWriter() {
+        final ActivityStreamService service = new ActivityStreamService() {
+            @Override
+            public Optional<String> serialize(final Event event) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Boolean serialize(final Event event, final Writer writer) {
+                if (event == mockEvent2) {
+                    return false;
+                }
+                try {
+                    writer.write("{\"id\":");
+                    writer.write(event == mockEvent1 ? '1' : '3');
+                    writer.write('}');
+                } catch (final IOException ex) {
+                    throw new RuntimeRepositoryException("Error writing activity stream message", ex);
+                }
+                return true;
+            }
+        };
+        final StringWriter writer = new StringWriter();
+        assertEquals((Integer) 2, service.serializeAll(asList(mockEvent2, mockEvent1, mockEvent2, mockEvent3),
+                    writer));
+        assertEquals("[{\"id\":1},{\"id\":3}]", writer.toString());
+    }
+
+    @Test
+    public void testWriterError() throws IOException {
+        final Writer mockWriter = mock(Writer.class);
+        doThrow(new IOException("Expected")).when(mockWriter).write(anyString());
+        assertThrows(RuntimeRepositoryException.class, () -> mockService.serialize(mockEvent1, mockWriter));
+        assertThrows(RuntimeRepositoryException.class, () ->
+                mockService.serializeAll(asList(mockEvent1), mockWriter));
+    }
+}
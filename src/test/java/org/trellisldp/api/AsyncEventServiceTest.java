@@ -0,0 +1,379 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.delete;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.list;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.size;
+import static java.nio.file.Files.walk;
+import static java.nio.file.Files.write;
+import static java.time.Duration.ofHours;
+import static java.time.Duration.ofMillis;
+import static java.time.Instant.parse;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Comparator.reverseOrder;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.vocabulary.AS;
+import org.trellisldp.vocabulary.LDP;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AsyncEventServiceTest {
+
+    private static final RDF rdf = new SimpleRDF();
+    private static final Instant time = parse("2017-11-01T12:00:00Z");
+
+    private final IRI agent = rdf.createIRI("info:user/test");
+    private final IRI target = rdf.createIRI("trellis:repository/resource");
+    private final IRI inbox = rdf.createIRI("http://example.com/inbox");
+
+    private final List<List<IRI>> batches = new ArrayList<>();
+    private final EventService mockEventService = mock(EventService.class);
+
+    private Path directory;
+    private Path outbox;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = createTempDirectory("trellis");
+        outbox = directory.resolve("events").resolve("outbox");
+        doAnswer(inv -> {
+            final Collection<Event> events = inv.getArgument(0);
+            synchronized (batches) {
+                batches.add(events.stream().map(Event::getIdentifier).collect(toList()));
+            }
+            return null;
+        }).when(mockEventService).emitAll(any());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        walk(directory).sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+
+    @Test
+    public void testBatches() throws IOException {
+        try (final AsyncEventService service = new AsyncEventService(mockEventService, outbox.toString(), 2,
+                    ofHours(1))) {
+            service.emit(event(1));
+            assertEquals(singletonList(id(1).getIRIString()), readLines().stream().map(line -> line.split("\t")[0])
+                    .collect(toList()));
+            service.emitAll(asList(event(2), event(3)));
+            service.flush();
+            assertEquals((Integer) 0, service.getPendingCount());
+            assertEquals(0L, outboxSize());
+            assertEquals(singletonList(segment(Long.parseLong(checkpoint()))), segments());
+        }
+        assertEquals(asList(asList(id(1), id(2)), singletonList(id(3))), batches);
+        verify(mockEventService, never()).emit(any());
+    }
+
+    @Test
+    public void testScheduledFlush() {
+        try (final AsyncEventService service = new AsyncEventService(mockEventService, outbox.toString(), 100,
+                    ofMillis(10))) {
+            service.emit(event(1));
+            verify(mockEventService, timeout(5000)).emitAll(any());
+        }
+        assertEquals(singletonList(singletonList(id(1))), batches);
+    }
+
+    @Test
+    public void testFullBatchFlush() {
+        try (final AsyncEventService service = new AsyncEventService(mockEventService, outbox.toString(), 2,
+                    ofHours(1))) {
+            service.emit(event(1));
+            service.emit(event(2));
+            verify(mockEventService, timeout(5000)).emitAll(any());
+        }
+        assertEquals(singletonList(asList(id(1), id(2))), batches);
+    }
+
+    @Test
+    public void testRecovery() throws IOException {
+        final EventService failing = mock(EventService.class);
+        doThrow(new RuntimeRepositoryException("Expected")).when(failing).emitAll(any());
+        try (final AsyncEventService service = new AsyncEventService(failing, outbox.toString(), 2, ofHours(1))) {
+            service.emit(event(1));
+            service.emit(fullEvent(2));
+            assertThrows(RuntimeRepositoryException.class, service::flush);
+            assertEquals((Integer) 2, service.getPendingCount());
+        }
+        final List<Event> recovered = new ArrayList<>();
+        doAnswer(inv -> recovered.addAll(inv.getArgument(0))).when(mockEventService).emitAll(any());
+        try (final AsyncEventService service = new AsyncEventService(mockEventService, outbox.toString(), 10,
+                    ofHours(1))) {
+            assertEquals((Integer) 2, service.getPendingCount());
+            service.flush();
+        }
+        assertEquals(asList(id(1), id(2)), recovered.stream().map(Event::getIdentifier).collect(toList()));
+        final Event event = recovered.get(1);
+        assertEquals(singletonList(agent), event.getAgents());
+        assertEquals(of(target), event.getTarget());
+        assertEquals(asList(AS.Create, AS.Update), event.getTypes());
+        assertEquals(singletonList(LDP.RDFSource), event.getTargetTypes());
+        assertEquals(time, event.getCreated());
+        assertEquals(of(inbox), event.getInbox());
+        assertEquals(empty(), recovered.get(0).getTarget());
+        assertEquals(emptyList(), recovered.get(0).getAgents());
+    }
+
+    @Test
+    public void testPartialAndDeliveredEvents() throws IOException {
+        try (final AsyncEventService service = new AsyncEventService(mockEventService, outbox.toString(), 1,
+                    ofHours(1))) {
+            service.emit(event(1));
+            service.emit(event(2));
+        }
+        final List<String> lines = new ArrayList<>();
+        lines.add(id(1).getIRIString() + "\t\t\t\t\t" + time + "\t");
+        lines.add("not an event");
+        lines.add(id(2).getIRIString() + "\t\t\t\t\tnot a date\t");
+        lines.add(id(3).getIRIString() + "\t\t\t\t\t" + time + "\t");
+        for (final Path segment : segments()) {
+            delete(segment);
+        }
+        write(segment(0L), (String.join("\n", lines) + "\n" + id(4).getIRIString() + "\t\t").getBytes(UTF_8));
+        write(outbox.resolveSibling("outbox.checkpoint"), Long.toString(lines.get(0).length() + 1L)
+                .getBytes(UTF_8));
+        batches.clear();
+
+        try (final AsyncEventService service = new AsyncEventService(mockEventService, outbox.toString(), 10,
+                    ofHours(1))) {
+            assertEquals((Integer) 1, service.getPendingCount());
+            service.flush();
+        }
+        assertEquals(singletonList(singletonList(id(3))), batches);
+        assertEquals(0L, outboxSize());
+    }
+
+    @Test
+    public void testStaleCheckpoint() throws IOException {
+        createDirectories(outbox.getParent());
+        write(segment(0L), new byte[0]);
+        write(outbox.resolveSibling("outbox.checkpoint"), "1000".getBytes(UTF_8));
+        try (final AsyncEventService service = new AsyncEventService(mockEventService, outbox.toString(), 10,
+                    ofHours(1))) {
+            assertEquals("0", checkpoint());
+            service.emit(event(1));
+            service.flush();
+        }
+        assertEquals(singletonList(singletonList(id(1))), batches);
+    }
+
+    @Test
+    public void testSpilledEvents() throws IOException {
+        final EventService failing = mock(EventService.class);
+        doThrow(new RuntimeRepositoryException("Expected")).when(failing).emitAll(any());
+        try (final AsyncEventService service = new AsyncEventService(failing, outbox.toString(), 2, ofHours(1),
+                    3, 100L)) {
+            for (int i = 1; i <= 10; ++i) {
+                service.emit(event(i));
+            }
+            assertThrows(RuntimeRepositoryException.class, service::flush);
+            service.emit(event(11));
+            assertEquals((Integer) 11, service.getPendingCount());
+        }
+
+        // the spilled events span several segments
+        assertTrue(segments().size() > 3);
+
+        // a small queue is refilled from the outbox until every event has been delivered
+        try (final AsyncEventService service = new AsyncEventService(mockEventService, outbox.toString(), 2,
+                    ofHours(1), 3, 100L)) {
+            assertEquals((Integer) 11, service.getPendingCount());
+            service.emit(event(12));
+            service.flush();
+            assertEquals((Integer) 0, service.getPendingCount());
+            assertEquals(0L, outboxSize());
+        }
+        final List<IRI> delivered = batches.stream().flatMap(List::stream).collect(toList());
+        assertEquals(IntStream.rangeClosed(1, 12).mapToObj(AsyncEventServiceTest::id).collect(toList()), delivered);
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 2));
+    }
+
+    @Test
+    public void testSteadyTraffic() throws Exception {
+        // the batch size is never reached, so only this thread flushes and the checkpoint stays put
+        try (final AsyncEventService service = new AsyncEventService(mockEventService, outbox.toString(), 2000,
+                    ofHours(1), 100, 200L)) {
+            final Thread producer = new Thread(() -> {
+                for (int i = 1; i <= 1000; ++i) {
+                    service.emit(event(i));
+                }
+            });
+            producer.start();
+            // new events keep arriving while others are delivered, yet delivered segments are removed
+            while (producer.isAlive()) {
+                service.flush();
+                final long delivered = exists(outbox.resolveSibling("outbox.checkpoint")) ?
+                    Long.parseLong(checkpoint()) : 0L;
+                assertTrue(segments().stream().filter(segment -> start(segment) <= delivered).count() <= 1L);
+            }
+            producer.join();
+            service.flush();
+            assertEquals(0L, outboxSize());
+        }
+        synchronized (batches) {
+            assertEquals(IntStream.rangeClosed(1, 1000).mapToObj(AsyncEventServiceTest::id).collect(toList()),
+                    batches.stream().flatMap(List::stream).collect(toList()));
+        }
+    }
+
+    @Test
+    public void testSpillWhileRunning() {
+        try (final AsyncEventService service = new AsyncEventService(mockEventService, outbox.toString(), 4,
+                    ofHours(1), 2)) {
+            for (int i = 1; i <= 9; ++i) {
+                service.emit(event(i));
+            }
+            service.flush();
+            service.emit(event(10));
+            service.flush();
+        }
+        synchronized (batches) {
+            assertEquals(IntStream.rangeClosed(1, 10).mapToObj(AsyncEventServiceTest::id).collect(toList()),
+                    batches.stream().flatMap(List::stream).collect(toList()));
+        }
+    }
+
+    @Test
+    public void testRetryBackoff() throws InterruptedException {
+        final EventService failing = mock(EventService.class);
+        doThrow(new RuntimeRepositoryException("Expected")).when(failing).emitAll(any());
+        try (final AsyncEventService service = new AsyncEventService(failing, outbox.toString(), 100,
+                    ofMillis(10))) {
+            service.emit(event(1));
+            Thread.sleep(500L);
+        }
+        // without a backoff there would be about 50 attempts in this time
+        verify(failing, atMost(12)).emitAll(any());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new AsyncEventService(mockEventService, outbox.toString(), 0, ofHours(1)));
+        assertThrows(IllegalArgumentException.class, () ->
+                new AsyncEventService(mockEventService, outbox.toString(), 10, ofMillis(0)));
+        assertThrows(IllegalArgumentException.class, () ->
+                new AsyncEventService(mockEventService, outbox.toString(), 10, ofHours(1), 0));
+        assertThrows(IllegalArgumentException.class, () ->
+                new AsyncEventService(mockEventService, outbox.toString(), 10, ofHours(1), 10, 0L));
+    }
+
+    private List<String> readLines() throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (final Path segment : segments()) {
+            content.append(new String(readAllBytes(segment), UTF_8));
+        }
+        return asList(content.toString().split("\n"));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (final Stream<Path> files = list(outbox.getParent())) {
+            return files.filter(path -> path.getFileName().toString().matches("outbox\\.[0-9]{20}")).sorted()
+                .collect(toList());
+        }
+    }
+
+    private long outboxSize() throws IOException {
+        long total = 0L;
+        for (final Path segment : segments()) {
+            total += size(segment);
+        }
+        return total;
+    }
+
+    private static long start(final Path segment) {
+        return Long.parseLong(segment.getFileName().toString().substring("outbox.".length()));
+    }
+
+    private Path segment(final long start) {
+        return outbox.resolveSibling("outbox." + String.format("%020d", start));
+    }
+
+    private String checkpoint() throws IOException {
+        return new String(readAllBytes(outbox.resolveSibling("outbox.checkpoint")), UTF_8);
+    }
+
+    private static IRI id(final int index) {
+        return rdf.createIRI("urn:uuid:event-" + index);
+    }
+
+    private static Event event(final int index) {
+        final Event event = mock(Event.class);
+        when(event.getIdentifier()).thenReturn(id(index));
+        when(event.getAgents()).thenReturn(emptyList());
+        when(event.getTarget()).thenReturn(empty());
+        when(event.getTypes()).thenReturn(emptyList());
+        when(event.getTargetTypes()).thenReturn(emptyList());
+        when(event.getCreated()).thenReturn(time);
+        when(event.getInbox()).thenReturn(empty());
+        return event;
+    }
+
+    private Event fullEvent(final int index) {
+        final Event event = event(index);
+        when(event.getAgents()).thenReturn(singletonList(agent));
+        when(event.getTarget()).thenReturn(of(target));
+        when(event.getTypes()).thenReturn(asList(AS.Create, AS.Update));
+        when(event.getTargetTypes()).thenReturn(singletonList(LDP.RDFSource));
+        when(event.getInbox()).thenReturn(of(inbox));
+        return event;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AuditLogServiceTest {
+
+    @Mock
+    private AuditLogService mockAuditLogService;
+
+    @Mock
+    private IRI mockIdentifier;
+
+    @Mock
+    private Quad mockQuad;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        doCallRealMethod().when(mockAuditLogService).read(any(IRI.class));
+        when(mockAuditLogService.read(eq(mockIdentifier), eq(Instant.MIN), eq(Instant.MAX)))
+            .thenAnswer(inv -> Stream.of(mockQuad));
+    }
+
+    @Test
+    public void testReadAll() {
+        assertEquals(1L, mockAuditLogService.read(mockIdentifier).count());
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AuditServiceTest {
+
+    private static final RDF rdf = new SimpleRDF();
+
+    private final IRI resource1 = rdf.createIRI("trellis:repository/resource1");
+    private final IRI resource2 = rdf.createIRI("trellis:repository/resource2");
+
+    @Mock
+    private AuditService mockAuditService;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Quad mockQuad1;
+
+    @Mock
+    private Quad mockQuad2;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        doCallRealMethod().when(mockAuditService).creations(any(), any());
+        doCallRealMethod().when(mockAuditService).deletions(any(), any());
+        doCallRealMethod().when(mockAuditService).updates(any(), any());
+        when(mockAuditService.creation(eq(resource1), eq(mockSession))).thenReturn(singletonList(mockQuad1));
+        when(mockAuditService.creation(eq(resource2), eq(mockSession))).thenReturn(singletonList(mockQuad2));
+        when(mockAuditService.deletion(eq(resource1), eq(mockSession))).thenReturn(singletonList(mockQuad1));
+        when(mockAuditService.deletion(eq(resource2), eq(mockSession))).thenReturn(singletonList(mockQuad2));
+        when(mockAuditService.update(eq(resource1), eq(mockSession))).thenReturn(singletonList(mockQuad1));
+        when(mockAuditService.update(eq(resource2), eq(mockSession))).thenReturn(singletonList(mockQuad2));
+    }
+
+    @Test
+    public void testBatches() {
+        assertEquals(asList(mockQuad1, mockQuad2),
+                mockAuditService.creations(asList(resource1, resource2), mockSession).collect(toList()));
+        assertEquals(asList(mockQuad2, mockQuad1),
+                mockAuditService.deletions(asList(resource2, resource1), mockSession).collect(toList()));
+        assertEquals(asList(mockQuad1, mockQuad2),
+                mockAuditService.updates(asList(resource1, resource2), mockSession).collect(toList()));
+    }
+}
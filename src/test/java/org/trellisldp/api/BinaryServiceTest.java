@@ -13,21 +13,34 @@
  */
 package org.trellisldp.api;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
 import java.util.Map;
 
 import org.apache.commons.rdf.api.IRI;
@@ -78,6 +91,14 @@ public class BinaryServiceTest {
         doCallRealMethod().when(mockBinaryService).calculateDigest(eq(partition), any(), any());
         doCallRealMethod().when(mockBinaryService).purgeContent(any(), any());
         doCallRealMethod().when(mockResolver).setContent(any(), any(), any());
+        doCallRealMethod().when(mockBinaryService).getContent(eq(partition), any(), any(), any());
+        doCallRealMethod().when(mockResolver).getContent(eq(partition), any(), any(), any());
+        doCallRealMethod().when(mockResolver).getChannel(eq(partition), any());
+        doCallRealMethod().when(mockBinaryService).calculateDigests(eq(partition), any(), any());
+        doCallRealMethod().when(mockBinaryService).digestAll(any(), any());
+        doCallRealMethod().when(mockBinaryService).isSupported(any());
+        doCallRealMethod().when(mockBinaryService).setContent(eq(partition), any(), any(), any(), any());
+        when(mockBinaryService.supportedAlgorithms()).thenReturn(new HashSet<>(asList("MD5", "SHA", "SHA-256")));
         when(mockResolver.getContent(eq(partition), any())).thenReturn(of(mockInputStream));
         when(mockResolver.exists(eq(partition), eq(identifier))).thenReturn(true);
         when(mockBinaryService.getResolver(any())).thenReturn(of(mockResolver));
@@ -102,6 +123,94 @@ public class BinaryServiceTest {
         verify(mockResolver).purgeContent(eq(partition), eq(identifier));
     }
 
+    @Test
+    public void testGetContentRange() throws IOException {
+        when(mockResolver.getContent(eq(partition), eq(identifier))).thenAnswer(inv ->
+                of(new ByteArrayInputStream("Some binary content".getBytes(UTF_8))));
+
+        assertEquals("binary", read(mockBinaryService.getContent(partition, identifier, 5L, 6L).get()));
+        assertEquals("content", read(mockBinaryService.getContent(partition, identifier, 12L, 100L).get()));
+        assertEquals("", read(mockBinaryService.getContent(partition, identifier, 100L, 10L).get()));
+        assertEquals("", read(mockBinaryService.getContent(partition, identifier, 0L, 0L).get()));
+        assertThrows(IllegalArgumentException.class, () ->
+                mockBinaryService.getContent(partition, identifier, -1L, 10L));
+        assertThrows(IllegalArgumentException.class, () ->
+                mockBinaryService.getContent(partition, identifier, 0L, -10L));
+        // an invalid range is rejected before the content is opened
+        verify(mockResolver, times(4)).getContent(eq(partition), eq(identifier));
+    }
+
+    @Test
+    public void testGetChannel() throws IOException {
+        when(mockResolver.getContent(eq(partition), eq(identifier))).thenAnswer(inv ->
+                of(new ByteArrayInputStream("Some binary content".getBytes(UTF_8))));
+        when(mockResolver.getContent(eq(partition), eq(other))).thenReturn(empty());
+
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        mockResolver.getChannel(partition, identifier).get().read(buffer);
+        assertEquals("Some binary content", new String(buffer.array(), 0, buffer.position(), UTF_8));
+        assertFalse(mockResolver.getChannel(partition, other).isPresent());
+    }
+
+    @Test
+    public void testCalculateDigests() {
+        when(mockResolver.getContent(eq(partition), eq(identifier))).thenAnswer(inv ->
+                of(new ByteArrayInputStream("Some binary content".getBytes(UTF_8))));
+        when(mockBinaryService.getResolver(eq(other))).thenReturn(empty());
+
+        final Map<String, String> digests = mockBinaryService.calculateDigests(partition, identifier,
+                new HashSet<>(asList("md5", "sha-256", "sha-512")));
+        assertEquals(2L, digests.size());
+        assertEquals("hMZYpOZ7PeRZEzF/5QW2vA==", digests.get("md5"));
+        assertEquals("El0bKy89LsiZ7mc0bPFhviHjFr/n5KkzfnA1dXANyy8=", digests.get("sha-256"));
+        assertTrue(mockBinaryService.calculateDigests(partition, other, singleton("md5")).isEmpty());
+        assertTrue(mockBinaryService.isSupported("sha"));
+        assertFalse(mockBinaryService.isSupported("sha-512"));
+    }
+
+    @Test
+    public void testSetContentWithDigests() {
+        final Map<String, String> data = emptyMap();
+        doAnswer(inv -> {
+            final InputStream stream = inv.getArgument(2);
+            while (stream.read() >= 0) {
+                // consume the stream
+            }
+            return null;
+        }).when(mockResolver).setContent(eq(partition), eq(identifier), any(), eq(data));
+        doCallRealMethod().when(mockResolver).setContent(eq(partition), eq(identifier), any(), eq(data), any());
+        when(mockResolver.getContent(eq(partition), eq(identifier))).thenAnswer(inv ->
+                of(new ByteArrayInputStream("Some binary content".getBytes(UTF_8))));
+        when(mockBinaryService.getResolver(eq(other))).thenReturn(empty());
+
+        final Map<String, String> digests = mockBinaryService.setContent(partition, identifier,
+                new ByteArrayInputStream("Some binary content".getBytes(UTF_8)), data, singleton("MD5"));
+        assertEquals(1L, digests.size());
+        assertEquals("hMZYpOZ7PeRZEzF/5QW2vA==", digests.get("MD5"));
+        verify(mockResolver).setDigests(eq(partition), eq(identifier), eq(digests));
+        verify(mockBinaryService).digestAll(eq(singleton("MD5")), any());
+        assertTrue(mockBinaryService.setContent(partition, other, mockInputStream, data, singleton("MD5")).isEmpty());
+    }
+
+    @Test
+    public void testStoredDigests() {
+        when(mockResolver.getContent(eq(partition), eq(identifier))).thenAnswer(inv ->
+                of(new ByteArrayInputStream("Some binary content".getBytes(UTF_8))));
+        when(mockResolver.getDigests(eq(partition), eq(identifier))).thenReturn(singletonMap("MD5", "stored"));
+
+        assertEquals(of("stored"), mockBinaryService.calculateDigest(partition, identifier, "md5"));
+        assertEquals(singletonMap("md5", "stored"), mockBinaryService.calculateDigests(partition, identifier,
+                    singleton("md5")));
+        verify(mockBinaryService, never()).digest(any(), any());
+        verify(mockResolver, never()).getContent(eq(partition), eq(identifier));
+
+        final Map<String, String> digests = mockBinaryService.calculateDigests(partition, identifier,
+                new HashSet<>(asList("md5", "sha-256")));
+        assertEquals("stored", digests.get("md5"));
+        assertEquals("El0bKy89LsiZ7mc0bPFhviHjFr/n5KkzfnA1dXANyy8=", digests.get("sha-256"));
+        verify(mockResolver).getContent(eq(partition), eq(identifier));
+    }
+
     @Test
     public void testMultipartUpload() {
         final String baseUrl = "baseurl";
@@ -113,4 +222,14 @@ public class BinaryServiceTest {
         assertEquals(mockSession, upload.getSession());
         assertEquals(mockBinary, upload.getBinary());
     }
+
+    private static String read(final InputStream stream) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4];
+        int count;
+        while ((count = stream.read(buffer)) >= 0) {
+            out.write(buffer, 0, count);
+        }
+        return new String(out.toByteArray(), UTF_8);
+    }
 }
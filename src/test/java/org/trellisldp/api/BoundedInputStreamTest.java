@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.trellisldp.api.BoundedInputStream.range;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class BoundedInputStreamTest {
+
+    private static final byte[] data = "0123456789".getBytes(UTF_8);
+
+    @Test
+    public void testSingleBytes() throws IOException {
+        final InputStream stream = range(new ByteArrayInputStream(data), 3L, 2L);
+        assertEquals(2, stream.available());
+        assertEquals('3', stream.read());
+        assertEquals('4', stream.read());
+        assertEquals(-1, stream.read());
+        assertEquals(-1, stream.read(new byte[4], 0, 4));
+        assertFalse(stream.markSupported());
+    }
+
+    @Test
+    public void testSkip() throws IOException {
+        final InputStream stream = range(new ByteArrayInputStream(data), 2L, 5L);
+        assertEquals(3L, stream.skip(3L));
+        assertEquals(2L, stream.skip(10L));
+        assertEquals(-1, stream.read());
+    }
+
+    @Test
+    public void testUnskippableStream() throws IOException {
+        final InputStream mockStream = mock(InputStream.class);
+        when(mockStream.skip(anyLong())).thenReturn(0L);
+        when(mockStream.read()).thenReturn((int) 'a', (int) 'b', (int) 'c', -1);
+        final InputStream stream = range(mockStream, 2L, 5L);
+        assertEquals('c', stream.read());
+        assertEquals(-1, stream.read());
+    }
+
+    @Test
+    public void testSkipError() throws IOException {
+        final InputStream mockStream = mock(InputStream.class);
+        when(mockStream.skip(anyLong())).thenThrow(new IOException("Expected"));
+        doThrow(new IOException("Expected close")).when(mockStream).close();
+        final RuntimeRepositoryException ex = assertThrows(RuntimeRepositoryException.class, () ->
+                range(mockStream, 2L, 5L));
+        assertEquals(1, ex.getCause().getSuppressed().length);
+        assertThrows(IllegalArgumentException.class, () -> range(mockStream, 2L, -5L));
+        verify(mockStream, times(2)).close();
+    }
+}
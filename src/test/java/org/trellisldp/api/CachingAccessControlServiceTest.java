@@ -0,0 +1,234 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.time.Duration.ofMinutes;
+import static java.time.Instant.parse;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.vocabulary.ACL;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class CachingAccessControlServiceTest {
+
+    private static final RDF rdf = new SimpleRDF();
+    private static final Instant time = parse("2017-11-01T12:00:00Z");
+
+    private final IRI root = rdf.createIRI("trellis:repository");
+    private final IRI container = rdf.createIRI("trellis:repository/container");
+    private final IRI child1 = rdf.createIRI("trellis:repository/container/child1");
+    private final IRI child2 = rdf.createIRI("trellis:repository/container/child2");
+    private final IRI agent = rdf.createIRI("info:user/agent");
+    private final IRI other = rdf.createIRI("info:user/other");
+    private final Set<IRI> modes = singleton(ACL.Read);
+
+    @Mock
+    private AccessControlService mockAccessControlService;
+
+    @Mock
+    private ResourceService mockResourceService;
+
+    @Mock
+    private Resource mockRoot;
+
+    @Mock
+    private Resource mockResource;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Session mockOtherSession;
+
+    @Mock
+    private Session mockDelegatedSession;
+
+    private CachingAccessControlService service;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        doCallRealMethod().when(mockResourceService).getContainer(any());
+        doCallRealMethod().when(mockResourceService).getAll(any());
+        when(mockResourceService.get(any(IRI.class))).thenReturn(of(mockResource));
+        when(mockResourceService.get(eq(root))).thenReturn(of(mockRoot));
+        when(mockRoot.hasAcl()).thenReturn(true);
+        when(mockRoot.getIdentifier()).thenReturn(root);
+        when(mockRoot.getModified()).thenReturn(time);
+        when(mockResource.hasAcl()).thenReturn(false);
+        when(mockResource.getIdentifier()).thenReturn(container);
+        when(mockSession.getAgent()).thenReturn(agent);
+        when(mockSession.getDelegatedBy()).thenReturn(empty());
+        when(mockOtherSession.getAgent()).thenReturn(other);
+        when(mockOtherSession.getDelegatedBy()).thenReturn(empty());
+        when(mockDelegatedSession.getAgent()).thenReturn(agent);
+        when(mockDelegatedSession.getDelegatedBy()).thenReturn(of(other));
+        when(mockAccessControlService.getAccessModes(any(), any())).thenReturn(modes);
+        service = new CachingAccessControlService(mockAccessControlService, mockResourceService, 100,
+                ofMinutes(10));
+    }
+
+    @Test
+    public void testSharedAcl() {
+        assertEquals(modes, service.getAccessModes(child1, mockSession));
+        assertEquals(modes, service.getAccessModes(child2, mockSession));
+        assertEquals(modes, service.getAccessModes(container, mockSession));
+        assertEquals(modes, service.getAccessModes(child1, mockSession));
+        verify(mockAccessControlService).getAccessModes(any(), any());
+
+        assertEquals(modes, service.getAccessModes(root, mockSession));
+        verify(mockAccessControlService).getAccessModes(eq(root), eq(mockSession));
+        assertEquals(root, service.findAclResource(child1));
+    }
+
+    @Test
+    public void testSessions() {
+        service.getAccessModes(child1, mockSession);
+        service.getAccessModes(child1, mockOtherSession);
+        service.getAccessModes(child1, mockDelegatedSession);
+        service.getAccessModes(child2, mockOtherSession);
+        service.getAccessModes(child2, mockDelegatedSession);
+        verify(mockAccessControlService, times(3)).getAccessModes(eq(child1), any());
+        verify(mockAccessControlService, times(0)).getAccessModes(eq(child2), any());
+    }
+
+    @Test
+    public void testAclChanges() {
+        service.getAccessModes(child1, mockSession);
+        when(mockRoot.getModified()).thenReturn(time.plusSeconds(10));
+        service.getAccessModes(child1, mockSession);
+        verify(mockAccessControlService, times(2)).getAccessModes(eq(child1), eq(mockSession));
+
+        // an ACL added to an intermediate container takes effect immediately
+        when(mockResourceService.get(eq(container))).thenReturn(of(mockRoot));
+        service.getAccessModes(child1, mockSession);
+        verify(mockAccessControlService, times(3)).getAccessModes(eq(child1), eq(mockSession));
+        assertEquals(container, service.findAclResource(child1));
+        service.getAccessModes(child1, mockSession);
+        verify(mockAccessControlService, times(3)).getAccessModes(eq(child1), eq(mockSession));
+
+        service.invalidateAll();
+        service.getAccessModes(child1, mockSession);
+        verify(mockAccessControlService, times(4)).getAccessModes(eq(child1), eq(mockSession));
+
+        // as does the removal of that ACL
+        when(mockResourceService.get(eq(container))).thenReturn(of(mockResource));
+        service.getAccessModes(child1, mockSession);
+        verify(mockAccessControlService, times(5)).getAccessModes(eq(child1), eq(mockSession));
+        assertEquals(root, service.findAclResource(child1));
+    }
+
+    @Test
+    public void testBulkAclChanges() {
+        final Resource first = resource(child1, false);
+        final Resource second = resource(child2, false);
+        final Resource parent = resource(container, true);
+        when(mockResourceService.get(eq(child1))).thenReturn(of(first));
+        when(mockResourceService.get(eq(child2))).thenReturn(of(second));
+        service.getAllAccessModes(asList(child1, child2), mockSession);
+        verify(mockAccessControlService).getAccessModes(any(), any());
+
+        when(mockResourceService.get(eq(container))).thenReturn(of(parent));
+        service.getAllAccessModes(asList(child1, child2), mockSession);
+        verify(mockAccessControlService, times(2)).getAccessModes(any(), any());
+        verify(mockAccessControlService, times(2)).getAccessModes(eq(child1), eq(mockSession));
+    }
+
+    @Test
+    public void testExpiryRequired() {
+        assertThrows(NullPointerException.class, () ->
+                new CachingAccessControlService(mockAccessControlService, mockResourceService, 100, null));
+    }
+
+    @Test
+    public void testBulk() {
+        when(mockResourceService.get(eq(child2))).thenReturn(empty());
+        final Map<IRI, Set<IRI>> result = service.getAllAccessModes(asList(child1, child2, container, root),
+                mockSession);
+        assertEquals(4, result.size());
+        result.values().forEach(value -> assertEquals(modes, value));
+        verify(mockAccessControlService).getAccessModes(eq(child1), eq(mockSession));
+        verify(mockAccessControlService).getAccessModes(eq(root), eq(mockSession));
+        verify(mockAccessControlService, times(2)).getAccessModes(any(), any());
+        verify(mockResourceService).get(eq(container));
+        verify(mockResourceService).get(eq(root));
+
+        assertEquals(modes, service.getAllAccessModes(asList(child1, child2), mockOtherSession).get(child2));
+        verify(mockAccessControlService).getAccessModes(eq(child1), eq(mockOtherSession));
+        verify(mockResourceService).get(eq(container));
+        verify(mockResourceService, times(2)).get(eq(root));
+    }
+
+    @Test
+    public void testBulkNoAcl() {
+        when(mockRoot.hasAcl()).thenReturn(false);
+        assertEquals(2, service.getAllAccessModes(asList(child1, child2), mockSession).size());
+        verify(mockAccessControlService, times(2)).getAccessModes(any(), any());
+        verify(mockResourceService).get(eq(root));
+    }
+
+    @Test
+    public void testNoAcl() {
+        when(mockRoot.hasAcl()).thenReturn(false);
+        service.getAccessModes(child1, mockSession);
+        service.getAccessModes(child1, mockSession);
+        verify(mockAccessControlService, times(2)).getAccessModes(eq(child1), eq(mockSession));
+    }
+
+    @Test
+    public void testMissingAclResource() {
+        service.getAccessModes(child1, mockSession);
+        when(mockResourceService.get(eq(root))).thenReturn(empty());
+        service.getAccessModes(child1, mockSession);
+        service.getAccessModes(child1, mockSession);
+        verify(mockAccessControlService, times(3)).getAccessModes(eq(child1), eq(mockSession));
+    }
+
+    private static Resource resource(final IRI identifier, final boolean acl) {
+        final Resource resource = mock(Resource.class);
+        when(resource.getIdentifier()).thenReturn(identifier);
+        when(resource.hasAcl()).thenReturn(acl);
+        when(resource.getModified()).thenReturn(time);
+        return resource;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.time.Instant.parse;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.vocabulary.RDF.type;
+import static org.trellisldp.vocabulary.Trellis.PreferUserManaged;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.vocabulary.LDP;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class CachingResourceServiceTest {
+
+    private static final RDF rdf = new SimpleRDF();
+    private static final Instant time = parse("2017-11-01T12:00:00Z");
+
+    private final IRI root = rdf.createIRI("trellis:repository");
+    private final IRI identifier = rdf.createIRI("trellis:repository/resource");
+    private final IRI missing = rdf.createIRI("trellis:repository/missing");
+
+    @Mock
+    private ResourceService mockResourceService;
+
+    @Mock
+    private Resource mockResource;
+
+    @Mock
+    private Resource mockContainer;
+
+    @Mock
+    private Resource mockMemento;
+
+    @Mock
+    private Dataset mockDataset;
+
+    @Mock
+    private Supplier<String> mockSupplier;
+
+    private ResourceService service;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        doCallRealMethod().when(mockResourceService).getContainer(any());
+        when(mockResourceService.get(eq(identifier))).thenReturn(of(mockResource));
+        when(mockResourceService.get(eq(root))).thenReturn(of(mockContainer));
+        when(mockResourceService.get(eq(missing))).thenReturn(empty());
+        when(mockResourceService.get(eq(identifier), eq(time))).thenReturn(of(mockMemento));
+        when(mockResourceService.put(any(), any(), any())).thenReturn(completedFuture(true));
+        when(mockResourceService.purge(any())).thenAnswer(inv -> Stream.empty());
+        when(mockResourceService.compact(any(), any(), any())).thenAnswer(inv -> Stream.empty());
+        when(mockResourceService.getIdentifierSupplier()).thenReturn(mockSupplier);
+        service = new CachingResourceService(mockResourceService, new LruCacheService<>(100));
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        assertEquals(of(mockResource), service.get(identifier));
+        assertEquals(of(mockResource), service.get(identifier));
+        assertEquals(of(mockResource), service.getAsync(identifier).get());
+        assertEquals(1L, service.getAll(asList(identifier, missing)).count());
+        verify(mockResourceService).get(eq(identifier));
+        verify(mockResourceService).getAll(eq(singletonList(missing)));
+
+        assertFalse(service.get(missing).isPresent());
+        assertFalse(service.get(missing).isPresent());
+        verify(mockResourceService, times(2)).get(eq(missing));
+
+        assertEquals(of(mockMemento), service.get(identifier, time));
+        assertEquals(of(mockMemento), service.get(identifier, time));
+        verify(mockResourceService, times(2)).get(eq(identifier), eq(time));
+    }
+
+    @Test
+    public void testGetAsync() throws Exception {
+        final IRI other = rdf.createIRI("trellis:repository/other");
+        when(mockResourceService.getAsync(eq(other))).thenReturn(completedFuture(of(mockResource)));
+        when(mockResourceService.getAsync(eq(missing))).thenReturn(completedFuture(empty()));
+        when(mockResourceService.getAsync(eq(identifier), eq(time))).thenReturn(completedFuture(of(mockMemento)));
+
+        assertEquals(of(mockResource), service.getAsync(other).get());
+        assertEquals(of(mockResource), service.getAsync(other).get());
+        assertEquals(of(mockResource), service.get(other));
+        verify(mockResourceService).getAsync(eq(other));
+        verify(mockResourceService, never()).get(eq(other));
+
+        assertFalse(service.getAsync(missing).get().isPresent());
+        assertFalse(service.getAsync(missing).get().isPresent());
+        verify(mockResourceService, times(2)).getAsync(eq(missing));
+
+        assertEquals(of(mockMemento), service.getAsync(identifier, time).get());
+        assertEquals(of(mockMemento), service.getAsync(identifier, time).get());
+        verify(mockResourceService, times(2)).getAsync(eq(identifier), eq(time));
+    }
+
+    @Test
+    public void testGetAsyncDuringLoad() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(mockResourceService.get(eq(identifier))).thenAnswer(inv -> {
+            started.countDown();
+            release.await();
+            return of(mockResource);
+        });
+        when(mockResourceService.getAsync(eq(identifier))).thenReturn(completedFuture(of(mockResource)));
+        final ExecutorService executor = newSingleThreadExecutor();
+        try {
+            final Future<Optional<Resource>> loading = executor.submit(() -> service.get(identifier));
+            assertTrue(started.await(5L, SECONDS));
+            // neither lookup waits for the synchronous load that is still in progress
+            assertEquals(of(mockResource), service.getAsync(identifier).get(5L, SECONDS));
+            when(mockResourceService.getAll(any())).thenAnswer(inv -> Stream.of(mockResource));
+            assertEquals(singletonList(mockResource), service.getAll(singletonList(identifier)).collect(toList()));
+            release.countDown();
+            assertEquals(of(mockResource), loading.get(5L, SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGetAll() {
+        final IRI other = rdf.createIRI("trellis:repository/other");
+        when(mockResource.getIdentifier()).thenReturn(identifier);
+        when(mockContainer.getIdentifier()).thenReturn(root);
+        when(mockResourceService.getAll(any())).thenAnswer(inv -> Stream.of(mockResource, mockContainer));
+
+        assertEquals(asList(mockResource, mockContainer),
+                service.getAll(asList(identifier, root, other)).collect(toList()));
+        assertEquals(asList(mockResource, mockContainer),
+                service.getAll(asList(identifier, root)).collect(toList()));
+        assertEquals(of(mockContainer), service.get(root));
+        verify(mockResourceService).getAll(eq(asList(identifier, root, other)));
+        verify(mockResourceService, never()).get(eq(identifier));
+        verify(mockResourceService, never()).get(eq(root));
+    }
+
+    @Test
+    public void testPut() throws Exception {
+        service.get(identifier);
+        service.get(root);
+        final CompletableFuture<Boolean> future = service.put(identifier, LDP.RDFSource, mockDataset);
+        assertTrue(future.get());
+        service.get(identifier);
+        service.get(root);
+        verify(mockResourceService).put(eq(identifier), eq(LDP.RDFSource), eq(mockDataset));
+        verify(mockResourceService, times(2)).get(eq(identifier));
+        verify(mockResourceService, times(2)).get(eq(root));
+    }
+
+    @Test
+    public void testPurge() {
+        service.get(identifier);
+        service.get(root);
+        assertEquals(0L, service.purge(identifier).count());
+        service.get(identifier);
+        service.get(root);
+        verify(mockResourceService).purge(eq(identifier));
+        verify(mockResourceService, times(2)).get(eq(identifier));
+        verify(mockResourceService, times(2)).get(eq(root));
+    }
+
+    @Test
+    public void testCompact() {
+        service.get(identifier);
+        service.get(root);
+        assertEquals(0L, service.compact(identifier, time, time).count());
+        service.get(identifier);
+        service.get(root);
+        verify(mockResourceService).compact(eq(identifier), eq(time), eq(time));
+        verify(mockResourceService, times(2)).get(eq(identifier));
+        verify(mockResourceService, times(2)).get(eq(root));
+    }
+
+    @Test
+    public void testInvalidate() {
+        service.get(identifier);
+        service.get(root);
+        ((CachingResourceService) service).invalidate(root);
+        service.get(identifier);
+        service.get(root);
+        verify(mockResourceService).get(eq(identifier));
+        verify(mockResourceService, times(2)).get(eq(root));
+    }
+
+    @Test
+    public void testDelegation() {
+        final BlankNode bnode = rdf.createBlankNode();
+        final IRI skolem = rdf.createIRI("trellis:bnode/skolem");
+        final String baseUrl = "http://example.com/";
+        final IRI external = rdf.createIRI("http://example.com/repository/resource");
+        final ScanPage page = new ScanPage(asList(rdf.createTriple(identifier, type, LDP.RDFSource)), null);
+        when(mockResourceService.skolemize(eq(bnode))).thenReturn(skolem);
+        when(mockResourceService.unskolemize(eq(skolem))).thenReturn(bnode);
+        when(mockResourceService.toInternal(eq(external), eq(baseUrl))).thenReturn(identifier);
+        when(mockResourceService.toExternal(eq(identifier), eq(baseUrl))).thenReturn(external);
+        when(mockResourceService.scan(eq("repository"))).thenAnswer(inv -> Stream.empty());
+        when(mockResourceService.scanSegment(eq("repository"), eq(0), eq(2))).thenAnswer(inv -> Stream.empty());
+        when(mockResourceService.scan(eq("repository"), any(), eq(10))).thenReturn(page);
+        when(mockResourceService.export(eq("repository"), any())).thenAnswer(inv -> Stream.empty());
+
+        assertEquals(skolem, service.skolemize(bnode));
+        assertEquals(bnode, service.unskolemize(skolem));
+        assertEquals(identifier, service.toInternal(external, baseUrl));
+        assertEquals(external, service.toExternal(identifier, baseUrl));
+        assertEquals(of(root), service.getContainer(identifier));
+        assertEquals(0L, service.scan("repository").count());
+        assertEquals(0L, service.scanSegment("repository", 0, 2).count());
+        assertEquals(page, service.scan("repository", null, 10));
+        assertEquals(0L, service.export("repository", singleton(PreferUserManaged)).count());
+        assertEquals(mockSupplier, service.getIdentifierSupplier());
+    }
+}
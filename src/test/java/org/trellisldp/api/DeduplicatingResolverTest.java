@@ -0,0 +1,325 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.list;
+import static java.nio.file.Files.readAllLines;
+import static java.nio.file.Files.walk;
+import static java.nio.file.Files.write;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.util.Base64.getUrlEncoder;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static java.util.Comparator.reverseOrder;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.joining;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class DeduplicatingResolverTest {
+
+    private static final RDF rdf = new SimpleRDF();
+    private static final String partition = "repository";
+    private static final String content = "Some binary content";
+    private static final String digest = "El0bKy89LsiZ7mc0bPFhviHjFr_n5KkzfnA1dXANyy8";
+
+    private final IRI first = rdf.createIRI("file:first");
+    private final IRI second = rdf.createIRI("file:second");
+
+    private Path directory;
+    private DeduplicatingResolver resolver;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = createTempDirectory("trellis");
+        resolver = new DeduplicatingResolver(new FileResolver(singletonMap(partition, directory.toString())),
+                "SHA-256", "file:cas/", directory.resolve("index").toString());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        walk(directory).sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+
+    @Test
+    public void testDeduplication() throws IOException {
+        resolver.setContent(partition, first, stream(content));
+        resolver.setContent(partition, second, stream(content));
+        assertEquals((Long) 2L, resolver.getReferenceCount(partition, digest));
+        assertTrue(resolver.getLocation(partition, first).getIRIString().startsWith("file:cas/"));
+        assertEquals(resolver.getLocation(partition, first), resolver.getLocation(partition, second));
+        assertEquals(1L, countFiles());
+
+        assertTrue(resolver.exists(partition, first));
+        assertEquals(content, read(resolver.getContent(partition, second).get()));
+        assertEquals("binary", read(resolver.getContent(partition, first, 5L, 6L).get()));
+        assertTrue(resolver.getChannel(partition, first).isPresent());
+
+        resolver.purgeContent(partition, first);
+        assertFalse(resolver.exists(partition, first));
+        assertTrue(resolver.exists(partition, second));
+        assertEquals((Long) 1L, resolver.getReferenceCount(partition, digest));
+
+        resolver.purgeContent(partition, second);
+        assertFalse(resolver.exists(partition, second));
+        assertEquals((Long) 0L, resolver.getReferenceCount(partition, digest));
+        assertEquals(0L, countFiles());
+    }
+
+    @Test
+    public void testReplaceContent() throws IOException {
+        resolver.setContent(partition, first, stream(content));
+        resolver.setContent(partition, first, stream(content));
+        assertEquals((Long) 1L, resolver.getReferenceCount(partition, digest));
+
+        resolver.setContent(partition, first, stream("Other content"), emptyMap());
+        assertEquals((Long) 0L, resolver.getReferenceCount(partition, digest));
+        assertEquals("Other content", read(resolver.getContent(partition, first).get()));
+        assertEquals(1L, countFiles());
+    }
+
+    @Test
+    public void testPersistentIndex() throws IOException {
+        resolver.setContent(partition, first, stream(content));
+        resolver.setContent(partition, second, stream(content));
+        resolver.setContent(partition, rdf.createIRI("file:third"), stream("Other content"));
+        resolver.purgeContent(partition, rdf.createIRI("file:third"));
+        resolver.setDigests(partition, first, singletonMap("MD5", "hMZYpOZ7PeRZEzF/5QW2vA=="));
+        final IRI location = resolver.getLocation(partition, first);
+
+        // a partial entry left behind by a crash is ignored
+        write(directory.resolve("index").resolve(getUrlEncoder().encodeToString(partition.getBytes(UTF_8)) +
+                    ".journal"), "file:fourth\tabc".getBytes(UTF_8), APPEND);
+
+        final DeduplicatingResolver restarted = new DeduplicatingResolver(new FileResolver(singletonMap(partition,
+                        directory.toString())), "SHA-256", "file:cas/", directory.resolve("index").toString());
+        assertEquals((Long) 2L, restarted.getReferenceCount(partition, digest));
+        assertEquals(location, restarted.getLocation(partition, second));
+        assertEquals(content, read(restarted.getContent(partition, first).get()));
+        assertEquals(singletonMap("MD5", "hMZYpOZ7PeRZEzF/5QW2vA=="), restarted.getDigests(partition, second));
+        assertFalse(restarted.exists(partition, rdf.createIRI("file:third")));
+        assertFalse(restarted.exists(partition, rdf.createIRI("file:fourth")));
+
+        restarted.purgeContent(partition, first);
+        restarted.purgeContent(partition, second);
+        assertEquals(0L, countFiles());
+        assertEquals((Long) 0L, new DeduplicatingResolver(mock(BinaryService.Resolver.class), "SHA-256",
+                    "file:cas/", directory.resolve("index").toString()).getReferenceCount(partition, digest));
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        for (int i = 0; i < 1500; ++i) {
+            resolver.setContent(partition, first, stream("Content " + i));
+        }
+        final Path journal = directory.resolve("index").resolve(getUrlEncoder()
+                .encodeToString(partition.getBytes(UTF_8)) + ".journal");
+        assertTrue(readAllLines(journal, UTF_8).size() < 1500);
+        assertEquals("Content 1499", read(new DeduplicatingResolver(new FileResolver(singletonMap(partition,
+                            directory.toString())), "SHA-256", "file:cas/", directory.resolve("index").toString())
+                    .getContent(partition, first).get()));
+        assertEquals(1L, countFiles());
+    }
+
+    @Test
+    public void testConcurrentWrites() throws Exception {
+        final BinaryService.Resolver mockResolver = mock(BinaryService.Resolver.class);
+        final AtomicInteger writes = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            final InputStream input = inv.getArgument(2);
+            while (input.read() >= 0) {
+                // consume the content, as a resolver would
+            }
+            if (writes.incrementAndGet() == 1) {
+                started.countDown();
+                assertTrue(release.await(5, SECONDS));
+            }
+            return null;
+        }).when(mockResolver).setContent(eq(partition), any(), any(), any());
+
+        final DeduplicatingResolver dedup = new DeduplicatingResolver(mockResolver, "SHA-256", "file:cas/",
+                directory.resolve("index").toString());
+        final ExecutorService executor = newSingleThreadExecutor();
+        try {
+            final Future<?> slow = executor.submit(() -> dedup.setContent(partition, first, stream(content)));
+            assertTrue(started.await(5, SECONDS));
+            // the same content is stored while the first write is still in progress
+            dedup.setContent(partition, second, stream(content));
+            assertFalse(slow.isDone());
+            assertEquals((Long) 1L, dedup.getReferenceCount(partition, digest));
+            release.countDown();
+            slow.get(5, SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals((Long) 2L, dedup.getReferenceCount(partition, digest));
+        assertEquals(dedup.getLocation(partition, second), dedup.getLocation(partition, first));
+        // the copy written by the slower request is removed, and nothing else is
+        verify(mockResolver).purgeContent(eq(partition), any());
+        verify(mockResolver, never()).purgeContent(eq(partition), eq(dedup.getLocation(partition, first)));
+    }
+
+    @Test
+    public void testMultipartUpload() throws IOException {
+        final DeduplicatingResolver dedup = new DeduplicatingResolver(new FileResolver(singletonMap(partition,
+                        directory.toString()), directory.resolve("uploads").toString()), "SHA-256", "file:cas/",
+                directory.resolve("index").toString());
+        dedup.setContent(partition, first, stream(content));
+        assertEquals(1L, countFiles());
+
+        final String upload = dedup.initiateUpload(partition, first, "text/plain");
+        final String part = dedup.uploadPart(upload, 1, stream("Uploaded content"));
+        dedup.completeUpload(upload, singletonMap(1, part));
+        assertEquals(first, dedup.getLocation(partition, first));
+        assertEquals("Uploaded content", read(dedup.getContent(partition, first).get()));
+        assertEquals((Long) 0L, dedup.getReferenceCount(partition, digest));
+        assertEquals(0L, countFiles());
+
+        dedup.purgeContent(partition, first);
+        assertFalse(dedup.exists(partition, first));
+    }
+
+    @Test
+    public void testConcurrentReferences() throws Exception {
+        final ExecutorService executor = newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; ++i) {
+                final IRI identifier = rdf.createIRI("file:concurrent" + (i % 8));
+                final boolean purge = i % 3 == 0;
+                futures.add(executor.submit(() -> {
+                    if (purge) {
+                        resolver.purgeContent(partition, identifier);
+                    } else {
+                        resolver.setContent(partition, identifier, stream(content));
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long expected = 0L;
+        for (int i = 0; i < 8; ++i) {
+            if (!resolver.getLocation(partition, rdf.createIRI("file:concurrent" + i))
+                    .equals(rdf.createIRI("file:concurrent" + i))) {
+                expected += 1L;
+            }
+        }
+        assertEquals((Long) expected, resolver.getReferenceCount(partition, digest));
+        assertEquals(expected > 0L ? 1L : 0L, countFiles());
+    }
+
+    @Test
+    public void testPassThrough() {
+        final BinaryService.Resolver mockResolver = mock(BinaryService.Resolver.class);
+        final InputStream input = stream(content);
+        when(mockResolver.supportsMultipartUpload()).thenReturn(true);
+        when(mockResolver.initiateUpload(eq(partition), eq(first), eq("text/plain"))).thenReturn("upload");
+        when(mockResolver.uploadPart(eq("upload"), eq(1), eq(input))).thenReturn("digest");
+        when(mockResolver.uploadSessionExists(eq("upload"))).thenReturn(true);
+        when(mockResolver.listParts(eq("upload"))).thenAnswer(inv -> Stream.empty());
+        when(mockResolver.exists(eq(partition), eq(first))).thenReturn(true);
+
+        final DeduplicatingResolver dedup = new DeduplicatingResolver(mockResolver, "md5", "file:cas/",
+                directory.resolve("index").toString());
+        assertTrue(dedup.exists(partition, first));
+        assertTrue(dedup.supportsMultipartUpload());
+        assertEquals("upload", dedup.initiateUpload(partition, first, "text/plain"));
+        assertEquals("digest", dedup.uploadPart("upload", 1, input));
+        assertTrue(dedup.uploadSessionExists("upload"));
+        assertEquals(0L, dedup.listParts("upload").count());
+        dedup.completeUpload("upload", emptyMap());
+        dedup.abortUpload("upload");
+        dedup.purgeContent(partition, first);
+
+        verify(mockResolver).completeUpload(eq("upload"), any());
+        verify(mockResolver).abortUpload(eq("upload"));
+        verify(mockResolver).purgeContent(eq(partition), eq(first));
+    }
+
+    @Test
+    public void testUnsupportedAlgorithm() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new DeduplicatingResolver(mock(BinaryService.Resolver.class), "unknown", "file:cas/",
+                    directory.resolve("index").toString()));
+    }
+
+    private long countFiles() throws IOException {
+        final Path cas = directory.resolve("cas");
+        if (!cas.toFile().exists()) {
+            return 0L;
+        }
+        try (final Stream<Path> files = list(cas)) {
+            return files.count();
+        }
+    }
+
+    private static InputStream stream(final String value) {
+        return new ByteArrayInputStream(value.getBytes(UTF_8));
+    }
+
+    private static String read(final InputStream stream) throws IOException {
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(stream, UTF_8))) {
+            return reader.lines().collect(joining("\n"));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.time.Instant.parse;
+import static java.util.Arrays.asList;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.vocabulary.RDF.type;
+import static org.trellisldp.vocabulary.Trellis.PreferAudit;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.vocabulary.AS;
+import org.trellisldp.vocabulary.PROV;
+import org.trellisldp.vocabulary.XSD;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class DefaultAuditServiceTest {
+
+    private static final RDF rdf = new SimpleRDF();
+    private static final Instant time = parse("2017-11-01T12:00:00Z");
+
+    private final IRI resource1 = rdf.createIRI("trellis:repository/resource1");
+    private final IRI resource2 = rdf.createIRI("trellis:repository/resource2");
+    private final IRI agent = rdf.createIRI("http://example.com/user");
+    private final IRI delegate = rdf.createIRI("http://example.com/admin");
+    private final AuditService service = new DefaultAuditService();
+
+    @Mock
+    private Session mockSession;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        when(mockSession.getAgent()).thenReturn(agent);
+        when(mockSession.getCreated()).thenReturn(time);
+        when(mockSession.getDelegatedBy()).thenReturn(empty());
+    }
+
+    @Test
+    public void testCreation() {
+        final List<Quad> quads = service.creation(resource1, mockSession);
+        assertEquals(5, quads.size());
+        checkActivity(quads, resource1, AS.Create);
+        assertThrows(UnsupportedOperationException.class, () -> quads.add(quads.get(0)));
+    }
+
+    @Test
+    public void testUpdate() {
+        when(mockSession.getDelegatedBy()).thenReturn(of(delegate));
+        final List<Quad> quads = service.update(resource1, mockSession);
+        assertEquals(6, quads.size());
+        checkActivity(quads, resource1, AS.Update);
+        assertTrue(quads.stream().anyMatch(q -> q.getPredicate().equals(PROV.actedOnBehalfOf)
+                    && q.getObject().equals(delegate)));
+    }
+
+    @Test
+    public void testDeletion() {
+        final List<Quad> quads = service.deletion(resource1, mockSession);
+        assertEquals(5, quads.size());
+        checkActivity(quads, resource1, AS.Delete);
+    }
+
+    @Test
+    public void testBatches() {
+        final List<Quad> created = service.creations(asList(resource1, resource2), mockSession).collect(toList());
+        assertEquals(10, created.size());
+        checkActivity(created.subList(0, 5), resource1, AS.Create);
+        checkActivity(created.subList(5, 10), resource2, AS.Create);
+        assertNotEquals(created.get(0).getObject(), created.get(5).getObject());
+        assertTrue(created.get(4).getObject() == created.get(9).getObject());
+
+        final List<Quad> updated = service.updates(asList(resource1, resource2), mockSession).collect(toList());
+        checkActivity(updated.subList(0, 5), resource1, AS.Update);
+        checkActivity(updated.subList(5, 10), resource2, AS.Update);
+
+        final List<Quad> deleted = service.deletions(asList(resource2), mockSession).collect(toList());
+        assertEquals(5, deleted.size());
+        checkActivity(deleted, resource2, AS.Delete);
+    }
+
+    private void checkActivity(final List<Quad> quads, final IRI identifier, final IRI activity) {
+        assertTrue(quads.stream().allMatch(q -> q.getGraphName().equals(of(PreferAudit))));
+        final RDFTerm bnode = quads.get(0).getObject();
+        assertEquals(identifier, quads.get(0).getSubject());
+        assertEquals(PROV.wasGeneratedBy, quads.get(0).getPredicate());
+        final List<Quad> activityQuads = quads.subList(1, quads.size());
+        assertTrue(activityQuads.stream().map(Quad::getSubject).allMatch(bnode::equals));
+        assertTrue(contains(activityQuads, (BlankNodeOrIRI) bnode, type, PROV.Activity));
+        assertTrue(contains(activityQuads, (BlankNodeOrIRI) bnode, type, activity));
+        assertTrue(contains(activityQuads, (BlankNodeOrIRI) bnode, PROV.wasAssociatedWith, agent));
+        assertTrue(contains(activityQuads, (BlankNodeOrIRI) bnode, PROV.startedAtTime,
+                    rdf.createLiteral(time.toString(), XSD.dateTime)));
+    }
+
+    private static Boolean contains(final List<Quad> quads, final BlankNodeOrIRI subject, final IRI predicate,
+            final RDFTerm object) {
+        return quads.stream().anyMatch(q -> q.getSubject().equals(subject) && q.getPredicate().equals(predicate)
+                && q.getObject().equals(object));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.trellisldp.api.DigestUtils.digest;
+import static org.trellisldp.api.DigestUtils.digesting;
+import static org.trellisldp.api.DigestUtils.getMessageDigest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class DigestUtilsTest {
+
+    private static final byte[] content = "Some binary content".getBytes(UTF_8);
+
+    @Test
+    public void testMessageDigest() {
+        assertEquals("MD5", getMessageDigest("md5").get().getAlgorithm());
+        assertEquals("SHA-1", getMessageDigest("SHA").get().getAlgorithm());
+        assertEquals("SHA-256", getMessageDigest("sha-256").get().getAlgorithm());
+        assertFalse(getMessageDigest("UNIXsum").isPresent());
+    }
+
+    @Test
+    public void testDigest() {
+        final Map<String, String> digests = digest(asList("md5", "SHA", "sha-256", "crc32c"),
+                new ByteArrayInputStream(content));
+        assertEquals(3L, digests.size());
+        assertEquals("hMZYpOZ7PeRZEzF/5QW2vA==", digests.get("md5"));
+        assertEquals("EvwUZNEiBc56A2dauAuKEsQymsg=", digests.get("SHA"));
+        assertEquals("El0bKy89LsiZ7mc0bPFhviHjFr/n5KkzfnA1dXANyy8=", digests.get("sha-256"));
+        assertFalse(digests.containsKey("crc32c"));
+    }
+
+    @Test
+    public void testDigestingStream() throws IOException {
+        final DigestingInputStream stream = digesting(asList("md5"), new ByteArrayInputStream(content));
+        assertEquals('S', stream.read());
+        assertEquals(4L, stream.skip(4L));
+        assertEquals(0L, stream.skip(-1L));
+        assertEquals(0L, stream.skip(0L));
+        final byte[] buffer = new byte[content.length];
+        assertEquals(content.length - 5, stream.read(buffer, 0, buffer.length));
+        assertEquals(-1, stream.read());
+        assertEquals(0L, stream.skip(10L));
+        assertFalse(stream.markSupported());
+        assertEquals("hMZYpOZ7PeRZEzF/5QW2vA==", stream.getDigests().get("md5"));
+        assertTrue(stream.getDigests() == stream.getDigests());
+    }
+
+    @Test
+    public void testDigestError() throws IOException {
+        final InputStream mockStream = mock(InputStream.class);
+        when(mockStream.read(any(), anyInt(), anyInt())).thenThrow(new IOException("Expected"));
+        assertThrows(RuntimeRepositoryException.class, () -> digest(asList("md5"), mockStream));
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.delete;
+import static java.nio.file.Files.list;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.size;
+import static java.nio.file.Files.walk;
+import static java.nio.file.Files.write;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.time.Instant.parse;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Comparator.reverseOrder;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.vocabulary.Trellis.PreferAudit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.vocabulary.AS;
+import org.trellisldp.vocabulary.DC;
+import org.trellisldp.vocabulary.PROV;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class FileAuditLogServiceTest {
+
+    private static final RDF rdf = new SimpleRDF();
+    private static final Instant time1 = parse("2017-11-01T12:00:00Z");
+    private static final Instant time2 = parse("2017-11-02T12:00:00Z");
+    private static final Instant time3 = parse("2017-11-03T12:00:00Z");
+
+    private final IRI resource1 = rdf.createIRI("trellis:repository/resource1");
+    private final IRI resource2 = rdf.createIRI("trellis:repository/resource2");
+    private final IRI resource10 = rdf.createIRI("trellis:repository/resource10");
+
+    @Mock
+    private Session mockSession;
+
+    private Path directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        initMocks(this);
+        when(mockSession.getAgent()).thenReturn(rdf.createIRI("http://example.com/user"));
+        when(mockSession.getCreated()).thenReturn(time1);
+        directory = createTempDirectory("trellis");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        walk(directory).sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+
+    @Test
+    public void testAppendAndRead() {
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString())) {
+            service.append(resource1, time1, asList(quad(resource1, "first"), quad(resource1, "second")));
+            service.append(resource10, time2, asList(quad(resource10, "third")));
+            service.append(resource2, time2, asList(quad(resource2, "fourth")));
+            service.append(resource1, time3, asList(quad(resource1, "fifth")));
+            service.append(resource1, time3, emptyList());
+
+            assertEquals(asList(quad(resource1, "first"), quad(resource1, "second"), quad(resource1, "fifth")),
+                    service.read(resource1).collect(toList()));
+            assertEquals(asList(quad(resource1, "fifth")), service.read(resource1, time2, Instant.MAX)
+                    .collect(toList()));
+            assertEquals(asList(quad(resource1, "first"), quad(resource1, "second")),
+                    service.read(resource1, Instant.MIN, time2).collect(toList()));
+            assertEquals(asList(quad(resource10, "third"), quad(resource2, "fourth")),
+                    service.read(time2, time3).collect(toList()));
+            assertEquals(0L, service.read(rdf.createIRI("trellis:repository/other")).count());
+        }
+    }
+
+    @Test
+    public void testAuditService() {
+        final AuditService auditService = new DefaultAuditService();
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString())) {
+            service.append(resource1, time1, auditService.creation(resource1, mockSession));
+            service.append(resource1, time2, auditService.update(resource1, mockSession));
+
+            final List<Quad> quads = service.read(resource1).collect(toList());
+            assertEquals(10, quads.size());
+            assertTrue(quads.stream().allMatch(q -> q.getGraphName().filter(PreferAudit::equals).isPresent()));
+            assertEquals(PROV.wasGeneratedBy, quads.get(0).getPredicate());
+            assertTrue(quads.subList(1, 5).stream().allMatch(q -> q.getSubject().equals(quads.get(0).getObject())));
+            assertEquals(AS.Create, quads.get(2).getObject());
+            assertEquals(AS.Update, quads.get(7).getObject());
+            assertTrue(!quads.get(0).getObject().equals(quads.get(5).getObject()));
+        }
+    }
+
+    @Test
+    public void testRollover() throws IOException {
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString(), 200L)) {
+            service.append(resource1, time1, asList(quad(resource1, "first")));
+            service.append(resource1, time2, asList(quad(resource1, "second")));
+            service.append(resource1, time3, asList(quad(resource1, "third")));
+            assertEquals(3, segments().size());
+            assertEquals(asList(quad(resource1, "first"), quad(resource1, "second"), quad(resource1, "third")),
+                    service.read(resource1).collect(toList()));
+
+            // segments outside of the time range are not read
+            delete(segments().get(0));
+            assertEquals(asList(quad(resource1, "second"), quad(resource1, "third")),
+                    service.read(time2, Instant.MAX).collect(toList()));
+            assertThrows(RuntimeRepositoryException.class, () -> service.read(resource1).count());
+        }
+
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString(), 200L)) {
+            assertEquals(asList(quad(resource1, "second"), quad(resource1, "third")),
+                    service.read(resource1).collect(toList()));
+            service.append(resource2, time1, asList(quad(resource2, "fourth")));
+            assertEquals(3, segments().size());
+            assertEquals(asList(quad(resource2, "fourth")), service.read(time1, time2).collect(toList()));
+        }
+    }
+
+    @Test
+    public void testRecovery() throws IOException {
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString())) {
+            service.append(resource1, time1, asList(quad(resource1, "first")));
+        }
+        final Path segment = segments().get(0);
+        final long length = size(segment);
+        write(segment, ("not a quad\n" + time1 + "\ttrellis:repository/resource1\tnot a quad\n" +
+                    "2017-11-01\ttrellis:repository/resource1\t<a:b> <c:d> <e:f> .\n" +
+                    time2 + "\ttrellis:repository/resource1\t<trellis:repository/resource1> <c:d>").getBytes(UTF_8),
+                APPEND);
+
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString())) {
+            assertTrue(size(segment) > length);
+            service.append(resource1, time3, asList(quad(resource1, "second")));
+            assertEquals(asList(quad(resource1, "first"), quad(resource1, "second")),
+                    service.read(resource1).collect(toList()));
+            assertEquals(0L, service.read(time2, time3).count());
+        }
+    }
+
+    @Test
+    public void testResourceIndex() throws IOException {
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString())) {
+            service.append(resource1, time1, asList(quad(resource1, "first")));
+            service.append(resource2, time1, asList(quad(resource2, "second")));
+            service.append(resource1, time2, asList(quad(resource1, "third")));
+        }
+        final Path segment = segments().get(0);
+        assertTrue(directory.resolve("00000000000000000000.idx").toFile().isFile());
+
+        // the saved byte ranges locate the lines of each resource without a scan
+        final String content = new String(readAllBytes(segment), UTF_8);
+        write(segment, content.replace("second", "SECOND").getBytes(UTF_8));
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString())) {
+            assertEquals(asList(quad(resource1, "first"), quad(resource1, "third")),
+                    service.read(resource1).collect(toList()));
+            assertEquals(asList(quad(resource2, "SECOND")), service.read(resource2).collect(toList()));
+            service.append(resource2, time3, asList(quad(resource2, "fourth")));
+        }
+
+        // a stale index is extended with the lines appended after it was saved
+        delete(directory.resolve("00000000000000000000.idx"));
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString())) {
+            service.append(resource1, time3, asList(quad(resource1, "fifth")));
+        }
+        write(directory.resolve("00000000000000000000.idx"), "garbage".getBytes(UTF_8));
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString())) {
+            assertEquals(asList(quad(resource2, "SECOND"), quad(resource2, "fourth")),
+                    service.read(resource2).collect(toList()));
+            assertEquals(asList(quad(resource1, "first"), quad(resource1, "third"), quad(resource1, "fifth")),
+                    service.read(resource1).collect(toList()));
+            assertEquals(asList(quad(resource2, "fourth"), quad(resource1, "fifth")),
+                    service.read(time3, Instant.MAX).collect(toList()));
+        }
+    }
+
+    @Test
+    public void testIndexFromEarlierRun() throws IOException {
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString())) {
+            service.append(resource1, time1, asList(quad(resource1, "first")));
+        }
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString())) {
+            service.append(resource1, time2, asList(quad(resource1, "second")));
+            service.append(resource2, time3, asList(quad(resource2, "third")));
+        }
+        // the saved index is used as it is, without reading the segment again
+        final Path segment = segments().get(0);
+        write(segment, new String(readAllBytes(segment), UTF_8).replace("first", "FIRST").getBytes(UTF_8));
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString())) {
+            assertEquals(asList(quad(resource1, "FIRST"), quad(resource1, "second")),
+                    service.read(resource1).collect(toList()));
+            assertEquals(asList(quad(resource1, "second")), service.read(resource1, time2, time3)
+                    .collect(toList()));
+        }
+    }
+
+    @Test
+    public void testSealedSegmentIndex() throws IOException {
+        final Path index = directory.resolve("00000000000000000000.idx");
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString(), 200L)) {
+            service.append(resource1, time1, asList(quad(resource1, "first")));
+            service.append(resource2, time2, asList(quad(resource2, "second")));
+            service.append(resource1, time3, asList(quad(resource1, "third")));
+            assertTrue(index.toFile().isFile());
+
+            // the index of a sealed segment is read when it is queried
+            final String header = new String(readAllBytes(index), UTF_8).split("\n")[0];
+            write(index, (header + "\n").getBytes(UTF_8));
+            assertEquals(asList(quad(resource1, "third")), service.read(resource1).collect(toList()));
+
+            // without its index, a sealed segment is read in full
+            delete(index);
+            assertEquals(asList(quad(resource1, "first"), quad(resource1, "third")),
+                    service.read(resource1).collect(toList()));
+        }
+
+        // a missing index is rebuilt when the service is created
+        try (final FileAuditLogService service = new FileAuditLogService(directory.toString(), 200L)) {
+            assertTrue(index.toFile().isFile());
+            assertEquals(asList(quad(resource1, "first"), quad(resource1, "third")),
+                    service.read(resource1).collect(toList()));
+            assertEquals(asList(quad(resource2, "second")), service.read(resource2).collect(toList()));
+            assertEquals(asList(quad(resource2, "second")), service.read(time2, time3).collect(toList()));
+        }
+    }
+
+    @Test
+    public void testInvalidSegmentSize() {
+        assertThrows(IllegalArgumentException.class, () -> new FileAuditLogService(directory.toString(), 0L));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (final Stream<Path> files = list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".nq")).sorted().collect(toList());
+        }
+    }
+
+    private static Quad quad(final IRI identifier, final String title) {
+        return rdf.createQuad(PreferAudit, identifier, DC.title, rdf.createLiteral(title));
+    }
+}
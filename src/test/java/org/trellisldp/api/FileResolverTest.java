@@ -0,0 +1,450 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.nio.channels.Channels.newChannel;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.list;
+import static java.nio.file.Files.setLastModifiedTime;
+import static java.nio.file.Files.walk;
+import static java.nio.file.Files.write;
+import static java.time.Duration.ofMinutes;
+import static java.time.Instant.parse;
+import static java.util.Arrays.asList;
+import static java.util.Base64.getEncoder;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.Comparator.reverseOrder;
+import static java.util.Optional.of;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class FileResolverTest {
+
+    private static final RDF rdf = new SimpleRDF();
+    private static final String partition = "repository";
+    private static final String content = "Some binary content";
+    private static final Instant time = parse("2017-11-01T12:00:00Z");
+
+    private final IRI identifier = rdf.createIRI("file:ab/cd/resource");
+
+    private Path directory;
+    private FileResolver resolver;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = createTempDirectory("trellis");
+        resolver = new FileResolver(singletonMap(partition, directory.toString()));
+        resolver.setContent(partition, identifier, new ByteArrayInputStream(content.getBytes(UTF_8)));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        walk(directory).sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+
+    @Test
+    public void testContent() throws IOException {
+        assertEquals(singletonList("file"), resolver.getUriSchemes());
+        assertTrue(resolver.exists(partition, identifier));
+        assertTrue(directory.resolve("ab/cd/resource").toFile().isFile());
+        assertEquals(content, read(resolver.getContent(partition, identifier).get()));
+        assertEquals("binary", read(resolver.getContent(partition, identifier, 5L, 6L).get()));
+        assertEquals("content", read(resolver.getContent(partition, identifier, 12L, 100L).get()));
+        assertEquals("", read(resolver.getContent(partition, identifier, 100L, 10L).get()));
+        assertThrows(IllegalArgumentException.class, () -> resolver.getContent(partition, identifier, -1L, 1L));
+    }
+
+    @Test
+    public void testDigests() {
+        assertTrue(resolver.getDigests(partition, identifier).isEmpty());
+        resolver.setDigests(partition, identifier, singletonMap("MD5", "hMZYpOZ7PeRZEzF/5QW2vA=="));
+        assertEquals(singletonMap("MD5", "hMZYpOZ7PeRZEzF/5QW2vA=="), resolver.getDigests(partition, identifier));
+        assertTrue(directory.resolve("ab/cd/.resource.digests").toFile().isFile());
+        assertFalse(resolver.exists(partition, rdf.createIRI("file:ab/cd/.resource.digests")));
+        assertFalse(resolver.getContent(partition, rdf.createIRI("file:ab/cd/.resource.digests")).isPresent());
+        assertThrows(IllegalArgumentException.class, () -> resolver.setContent(partition,
+                    rdf.createIRI("file:ab/cd/.resource.digests"), new ByteArrayInputStream(new byte[0])));
+
+        // replacing the content discards the stored digests
+        resolver.setContent(partition, identifier, new ByteArrayInputStream("Other content".getBytes(UTF_8)));
+        assertTrue(resolver.getDigests(partition, identifier).isEmpty());
+
+        // digests that are out of date are ignored
+        resolver.setDigests(partition, identifier, singletonMap("MD5", "stale"));
+        assertTrue(directory.resolve("ab/cd/resource").toFile().setLastModified(0L));
+        assertTrue(resolver.getDigests(partition, identifier).isEmpty());
+
+        resolver.setDigests(partition, identifier, singletonMap("MD5", "current"));
+        resolver.purgeContent(partition, identifier);
+        assertFalse(directory.resolve("ab/cd/.resource.digests").toFile().exists());
+        assertTrue(resolver.getDigests(partition, identifier).isEmpty());
+        resolver.setDigests(partition, identifier, singletonMap("MD5", "missing"));
+        assertFalse(directory.resolve("ab/cd/.resource.digests").toFile().exists());
+    }
+
+    @Test
+    public void testContentWithDigests() throws IOException {
+        final String other = "Other content";
+        final Map<String, String> digests = resolver.setContent(partition, identifier,
+                new ByteArrayInputStream(other.getBytes(UTF_8)), emptyMap(),
+                input -> DigestUtils.digest(singleton("MD5"), input));
+        assertEquals(DigestUtils.digest(singleton("MD5"), new ByteArrayInputStream(other.getBytes(UTF_8))),
+                digests);
+        assertEquals(other, read(resolver.getContent(partition, identifier).get()));
+        assertEquals(digests, resolver.getDigests(partition, identifier));
+
+        // content that the digest function does not read is still written
+        resolver.setContent(partition, identifier, new ByteArrayInputStream(content.getBytes(UTF_8)), emptyMap(),
+                input -> singletonMap("MD5", "unread"));
+        assertEquals(content, read(resolver.getContent(partition, identifier).get()));
+        assertEquals(singletonMap("MD5", "unread"), resolver.getDigests(partition, identifier));
+
+        // a later write without digests discards them
+        resolver.setContent(partition, identifier, new ByteArrayInputStream(other.getBytes(UTF_8)));
+        assertTrue(resolver.getDigests(partition, identifier).isEmpty());
+    }
+
+    @Test
+    public void testChannel() throws IOException {
+        try (final ReadableByteChannel channel = resolver.getChannel(partition, identifier).get()) {
+            assertTrue(channel instanceof FileChannel);
+            final ByteBuffer buffer = ByteBuffer.allocate(64);
+            channel.read(buffer);
+            assertEquals(content, new String(buffer.array(), 0, buffer.position(), UTF_8));
+        }
+    }
+
+    @Test
+    public void testTransferTo() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(of(6L), resolver.transferTo(partition, identifier, 5L, 6L, newChannel(out)));
+        assertEquals("binary", new String(out.toByteArray(), UTF_8));
+        assertEquals(of(7L), resolver.transferTo(partition, identifier, 12L, 100L, newChannel(out)));
+        assertEquals(of(0L), resolver.transferTo(partition, identifier, 100L, 100L, newChannel(out)));
+        assertFalse(resolver.transferTo(partition, rdf.createIRI("file:missing"), 0L, 1L, newChannel(out))
+                .isPresent());
+
+        out.reset();
+        assertEquals(of(7L), resolver.transferTo(partition, identifier, 12L, Long.MAX_VALUE, newChannel(out)));
+        assertEquals("content", new String(out.toByteArray(), UTF_8));
+        assertThrows(IllegalArgumentException.class, () ->
+                resolver.transferTo(partition, identifier, -1L, 6L, newChannel(out)));
+        assertThrows(IllegalArgumentException.class, () ->
+                resolver.transferTo(partition, identifier, 0L, -6L, newChannel(out)));
+    }
+
+    @Test
+    public void testReplaceAndPurge() throws IOException {
+        final byte[] large = new byte[200 * 1024];
+        for (int i = 0; i < large.length; ++i) {
+            large[i] = (byte) i;
+        }
+        resolver.setContent(partition, identifier, new ByteArrayInputStream(large), emptyMap());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        resolver.transferTo(partition, identifier, 0L, (long) large.length, newChannel(out));
+        assertEquals(large.length, out.size());
+        assertEquals(large[150000], out.toByteArray()[150000]);
+        assertEquals(1L, directory.resolve("ab/cd").toFile().list().length);
+
+        resolver.purgeContent(partition, identifier);
+        assertFalse(resolver.exists(partition, identifier));
+        assertFalse(resolver.getContent(partition, identifier).isPresent());
+        resolver.purgeContent(partition, identifier);
+    }
+
+    @Test
+    public void testInvalidLocations() {
+        final IRI traversal = rdf.createIRI("file:../outside");
+        final IRI other = rdf.createIRI("http://example.com/resource");
+        assertFalse(resolver.exists(partition, traversal));
+        assertFalse(resolver.exists(partition, other));
+        assertFalse(resolver.exists("other", identifier));
+        assertTrue(resolver.exists(partition, rdf.createIRI("file:///ab/cd/resource")));
+        assertThrows(IllegalArgumentException.class, () ->
+                resolver.setContent(partition, traversal, new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    public void testMultipartUnsupported() {
+        assertFalse(resolver.supportsMultipartUpload());
+        assertFalse(resolver.uploadSessionExists("upload"));
+        assertThrows(UnsupportedOperationException.class, () -> resolver.initiateUpload(partition, identifier,
+                    "text/plain"));
+        assertThrows(UnsupportedOperationException.class, () -> resolver.uploadPart("upload", 1,
+                    new ByteArrayInputStream(new byte[0])));
+        assertThrows(UnsupportedOperationException.class, () -> resolver.completeUpload("upload", emptyMap()));
+        assertThrows(UnsupportedOperationException.class, () -> resolver.abortUpload("upload"));
+        assertThrows(UnsupportedOperationException.class, () -> resolver.listParts("upload"));
+    }
+
+    @Test
+    public void testMultipartUpload() throws Exception {
+        final FileResolver multipart = new FileResolver(singletonMap(partition, directory.toString()),
+                directory.resolve("uploads").toString());
+        final IRI upload = rdf.createIRI("file:ef/upload");
+        assertTrue(multipart.supportsMultipartUpload());
+        final String sessionId = multipart.initiateUpload(partition, upload, "text/plain");
+        assertTrue(multipart.uploadSessionExists(sessionId));
+
+        final List<String> parts = asList("first ", "second ", "third");
+        final ExecutorService executor = newFixedThreadPool(parts.size());
+        try {
+            final List<Future<String>> futures = new ArrayList<>();
+            for (int i = parts.size(); i > 0; --i) {
+                final Integer partNumber = i;
+                futures.add(executor.submit(() -> multipart.uploadPart(sessionId, partNumber,
+                            new ByteArrayInputStream(parts.get(partNumber - 1).getBytes(UTF_8)))));
+            }
+            for (final Future<String> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        final String extra = multipart.uploadPart(sessionId, 4, new ByteArrayInputStream("ignored".getBytes(UTF_8)));
+
+        final Map<Integer, String> digests = multipart.listParts(sessionId)
+            .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+        assertEquals(asList(1, 2, 3, 4), multipart.listParts(sessionId).map(Map.Entry::getKey).collect(toList()));
+        assertEquals(extra, digests.remove(4));
+
+        final Map<Integer, String> invalid = new HashMap<>(digests);
+        invalid.put(2, extra);
+        assertThrows(IllegalArgumentException.class, () -> multipart.completeUpload(sessionId, invalid));
+
+        final BinaryService.MultipartUpload result = multipart.completeUpload(sessionId, digests);
+        assertEquals(upload, result.getBinary().getIdentifier());
+        assertEquals(of("text/plain"), result.getBinary().getMimeType());
+        assertEquals(of(18L), result.getBinary().getSize());
+        assertEquals("first second third", read(multipart.getContent(partition, upload).get()));
+        assertFalse(multipart.uploadSessionExists(sessionId));
+        assertEquals(0L, list(directory.resolve("uploads")).count());
+        assertThrows(IllegalArgumentException.class, () -> multipart.listParts(sessionId));
+    }
+
+    @Test
+    public void testConcurrentPartUpload() throws Exception {
+        final FileResolver multipart = new FileResolver(singletonMap(partition, directory.toString()),
+                directory.resolve("uploads").toString());
+        final IRI upload = rdf.createIRI("file:ef/concurrent");
+        final String sessionId = multipart.initiateUpload(partition, upload, "text/plain");
+
+        final ExecutorService executor = newFixedThreadPool(8);
+        try {
+            final List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; ++i) {
+                final String content = "content " + i;
+                futures.add(executor.submit(() -> multipart.uploadPart(sessionId, 1,
+                            new ByteArrayInputStream(content.getBytes(UTF_8)))));
+            }
+            for (final Future<String> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        final Map<Integer, String> digests = multipart.listParts(sessionId)
+            .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+        multipart.completeUpload(sessionId, digests);
+        final String content = read(multipart.getContent(partition, upload).get());
+        assertEquals(getEncoder().encodeToString(MessageDigest.getInstance("MD5").digest(content.getBytes(UTF_8))),
+                digests.get(1));
+    }
+
+    @Test
+    public void testCompleteDuringPartUpload() throws Exception {
+        final FileResolver multipart = new FileResolver(singletonMap(partition, directory.toString()),
+                directory.resolve("uploads").toString());
+        final IRI upload = rdf.createIRI("file:ef/completing");
+        final String sessionId = multipart.initiateUpload(partition, upload, "text/plain");
+        final String first = multipart.uploadPart(sessionId, 1, new ByteArrayInputStream("first".getBytes(UTF_8)));
+        final String second = getEncoder().encodeToString(MessageDigest.getInstance("MD5")
+                .digest("second".getBytes(UTF_8)));
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final InputStream slow = new SequenceInputStream(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return -1;
+            }
+        }, new ByteArrayInputStream("second".getBytes(UTF_8)));
+
+        final ExecutorService executor = newFixedThreadPool(3);
+        try {
+            final Future<String> reupload = executor.submit(() -> multipart.uploadPart(sessionId, 1, slow));
+            assertTrue(started.await(5L, SECONDS));
+            final Future<?> stale = executor.submit(() -> multipart.completeUpload(sessionId, singletonMap(1, first)));
+            // the completion waits for the part that is being uploaded again
+            assertThrows(TimeoutException.class, () -> stale.get(200L, MILLISECONDS));
+            final Future<?> other = executor.submit(() -> multipart.completeUpload(sessionId, singletonMap(1, second)));
+            final ExecutionException ex = assertThrows(ExecutionException.class, () -> other.get(5L, SECONDS));
+            assertTrue(ex.getCause() instanceof IllegalArgumentException);
+
+            release.countDown();
+            assertEquals(second, reupload.get(5L, SECONDS));
+            final ExecutionException invalid = assertThrows(ExecutionException.class, () -> stale.get(5L, SECONDS));
+            assertTrue(invalid.getCause() instanceof IllegalArgumentException);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the failed completion may be retried
+        multipart.completeUpload(sessionId, singletonMap(1, second));
+        assertEquals("second", read(multipart.getContent(partition, upload).get()));
+        assertThrows(IllegalArgumentException.class, () ->
+                multipart.completeUpload(sessionId, singletonMap(1, second)));
+    }
+
+    @Test
+    public void testTransferStalled() throws IOException {
+        final FileChannel source = mock(FileChannel.class);
+        final WritableByteChannel target = mock(WritableByteChannel.class);
+        when(source.size()).thenReturn(10L);
+        when(source.transferTo(0L, 10L, target)).thenReturn(4L);
+        when(source.transferTo(4L, 6L, target)).thenReturn(0L);
+        assertThrows(IOException.class, () -> FileResolver.transfer(source, target));
+
+        when(source.transferTo(4L, 6L, target)).thenReturn(6L);
+        assertEquals(10L, FileResolver.transfer(source, target));
+    }
+
+    @Test
+    public void testAbortUpload() throws IOException {
+        final FileResolver multipart = new FileResolver(singletonMap(partition, directory.toString()),
+                directory.resolve("uploads").toString());
+        final IRI upload = rdf.createIRI("file:ef/aborted");
+        final String sessionId = multipart.initiateUpload(partition, upload, "text/plain");
+        multipart.uploadPart(sessionId, 1, new ByteArrayInputStream(content.getBytes(UTF_8)));
+        multipart.abortUpload(sessionId);
+        assertFalse(multipart.uploadSessionExists(sessionId));
+        assertFalse(multipart.exists(partition, upload));
+        assertEquals(0L, list(directory.resolve("uploads")).count());
+        assertThrows(IllegalArgumentException.class, () -> multipart.uploadPart(sessionId, 2,
+                    new ByteArrayInputStream(content.getBytes(UTF_8))));
+        assertThrows(IllegalArgumentException.class, () -> multipart.initiateUpload("other", upload, "text/plain"));
+    }
+
+    @Test
+    public void testReapExpiredUploads() throws IOException {
+        final Clock mockClock = mock(Clock.class);
+        when(mockClock.millis()).thenReturn(time.toEpochMilli());
+        final Path uploads = directory.resolve("uploads");
+        final FileResolver multipart = new FileResolver(singletonMap(partition, directory.toString()),
+                uploads.toString(), ofMinutes(10), mockClock);
+        assertEquals((Long) 0L, multipart.reapExpiredUploads());
+
+        final String active = multipart.initiateUpload(partition, rdf.createIRI("file:ef/active"), "text/plain");
+        final String abandoned = multipart.initiateUpload(partition, rdf.createIRI("file:ef/abandoned"),
+                "text/plain");
+        multipart.uploadPart(abandoned, 1, new ByteArrayInputStream(content.getBytes(UTF_8)));
+        multipart.uploadPart(abandoned, 2, new ByteArrayInputStream(content.getBytes(UTF_8)));
+
+        final Path orphan = createDirectories(uploads.resolve("orphan"));
+        write(orphan.resolve("1"), content.getBytes(UTF_8));
+        setLastModifiedTime(orphan, FileTime.from(time.minusSeconds(3600)));
+        final Path recent = createDirectories(uploads.resolve("recent"));
+        setLastModifiedTime(recent, FileTime.from(time));
+
+        when(mockClock.millis()).thenReturn(time.plusSeconds(300).toEpochMilli());
+        multipart.uploadPart(active, 1, new ByteArrayInputStream(content.getBytes(UTF_8)));
+        assertEquals((Long) (long) content.length(), multipart.reapExpiredUploads());
+        assertFalse(exists(orphan));
+        assertTrue(exists(recent));
+
+        when(mockClock.millis()).thenReturn(time.plusSeconds(660).toEpochMilli());
+        assertTrue(multipart.uploadSessionExists(active));
+        assertFalse(multipart.uploadSessionExists(abandoned));
+        assertThrows(IllegalArgumentException.class, () -> multipart.uploadPart(abandoned, 3,
+                    new ByteArrayInputStream(content.getBytes(UTF_8))));
+        assertEquals((Long) (2L * content.length()), multipart.reapExpiredUploads());
+        assertFalse(exists(uploads.resolve(abandoned)));
+        assertFalse(exists(recent));
+        assertTrue(exists(uploads.resolve(active)));
+        assertEquals((Long) 0L, resolver.reapExpiredUploads());
+    }
+
+    private static String read(final InputStream stream) throws IOException {
+        try (final InputStream input = stream) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8];
+            int count;
+            while ((count = input.read(buffer)) >= 0) {
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), UTF_8);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Optional.of;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.trellisldp.api.RDFUtils.TRELLIS_PREFIX;
+import static org.trellisldp.vocabulary.Trellis.PreferUserManaged;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.vocabulary.DC;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class IRITranslatorTest {
+
+    private static final RDF rdf = new SimpleRDF();
+    private static final String baseUrl = "http://example.com/";
+
+    private final IRI external = rdf.createIRI(baseUrl + "repository/resource");
+    private final IRI internal = rdf.createIRI("trellis:repository/resource");
+    private final IRI other = rdf.createIRI("http://example.org/repository/resource");
+    private final Literal literal = rdf.createLiteral("A literal");
+
+    @Test
+    public void testTerms() {
+        final IRITranslator translator = new IRITranslator(baseUrl);
+        assertEquals(baseUrl, translator.getBaseUrl());
+        assertEquals(internal, translator.toInternal(external));
+        assertEquals(external, translator.toExternal(internal));
+        assertSame(other, translator.toInternal(other));
+        assertSame(other, translator.toExternal(other));
+
+        final BlankNode bnode = rdf.createBlankNode();
+        assertSame(bnode, translator.toInternal(bnode));
+        assertSame(bnode, translator.toExternal(bnode));
+        assertSame(literal, translator.toInternal(literal));
+        assertSame(literal, translator.toExternal(literal));
+    }
+
+    @Test
+    public void testCaching() {
+        final IRITranslator translator = new IRITranslator(baseUrl, 1);
+
+        assertSame(translator.toInternal(external), translator.toInternal(rdf.createIRI(external.getIRIString())));
+        assertSame(translator.toExternal(internal), translator.toExternal(internal));
+        // a full cache still translates every IRI
+        final IRI first = translator.toInternal(external);
+        final IRI second = translator.toInternal(rdf.createIRI(baseUrl + "other"));
+        assertEquals(internal, first);
+        assertEquals(rdf.createIRI(TRELLIS_PREFIX + "other"), second);
+        assertSame(second, translator.toInternal(rdf.createIRI(baseUrl + "other")));
+        assertEquals(internal, translator.toInternal(external));
+
+        assertThrows(IllegalArgumentException.class, () -> new IRITranslator(baseUrl, 0));
+    }
+
+    @Test
+    public void testMatchesResourceService() {
+        final ResourceService service = mock(ResourceService.class);
+        doCallRealMethod().when(service).toInternal(any(), any());
+        doCallRealMethod().when(service).toExternal(any(), any());
+        final IRITranslator translator = new IRITranslator(baseUrl, 5);
+        Stream.of(external, internal, other, rdf.createIRI(baseUrl + "a")).forEach(iri -> {
+            assertEquals(service.toInternal(iri, baseUrl), translator.toInternal(iri));
+            assertEquals(service.toExternal(iri, baseUrl), translator.toExternal(iri));
+        });
+    }
+
+    @Test
+    public void testTriples() {
+        final IRITranslator translator = new IRITranslator(baseUrl);
+        final Triple triple = rdf.createTriple(external, DC.relation, external);
+        final Triple unchanged = rdf.createTriple(other, DC.title, literal);
+
+        final List<Triple> triples = Stream.of(triple, unchanged).map(translator::toInternal).collect(toList());
+        assertEquals(rdf.createTriple(internal, DC.relation, internal), triples.get(0));
+        assertSame(unchanged, triples.get(1));
+        assertEquals(triple, translator.toExternal(triples.get(0)));
+        assertSame(unchanged, translator.toExternal(unchanged));
+    }
+
+    @Test
+    public void testQuads() {
+        final IRITranslator translator = new IRITranslator(baseUrl);
+        final Quad quad = rdf.createQuad(PreferUserManaged, external, DC.title, literal);
+        final Quad unchanged = rdf.createQuad(null, other, DC.relation, other);
+
+        final Quad translated = translator.toInternal(quad);
+        assertEquals(rdf.createQuad(PreferUserManaged, internal, DC.title, literal), translated);
+        assertEquals(of(PreferUserManaged), translated.getGraphName());
+        assertSame(unchanged, translator.toInternal(unchanged));
+        assertEquals(quad, translator.toExternal(translated));
+        assertSame(unchanged, translator.toExternal(unchanged));
+        assertEquals(rdf.createQuad(null, external, DC.relation, other),
+                translator.toExternal(rdf.createQuad(null, internal, DC.relation, other)));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.time.Duration.ZERO;
+import static java.time.Duration.ofMillis;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class IngestPipelineTest {
+
+    private static final RDF rdf = new SimpleRDF();
+    private static final String partition = "repository";
+    private static final Set<String> algorithms = new HashSet<>(asList("MD5", "SHA-256", "unknown"));
+
+    private final IRI identifier = rdf.createIRI("file:resource");
+    private final byte[] content = new byte[100000];
+    private final BinaryService.Resolver mockResolver = mock(BinaryService.Resolver.class);
+
+    private ExecutorService executor;
+    private ByteArrayOutputStream stored;
+
+    @BeforeEach
+    public void setUp() {
+        new Random(42L).nextBytes(content);
+        executor = newCachedThreadPool();
+        stored = new ByteArrayOutputStream();
+        doAnswer(inv -> {
+            stored.write(read(inv.getArgument(2)));
+            return null;
+        }).when(mockResolver).setContent(eq(partition), eq(identifier), any(), any());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testIngest() {
+        final IngestPipeline pipeline = new IngestPipeline(executor, 1000, 4);
+        final Map<String, String> digests = pipeline.ingest(mockResolver, partition, identifier,
+                new ByteArrayInputStream(content), emptyMap(), algorithms);
+        assertEquals(DigestUtils.digest(algorithms, new ByteArrayInputStream(content)), digests);
+        assertEquals(2, digests.size());
+        assertArrayEquals(content, stored.toByteArray());
+        verify(mockResolver).setDigests(eq(partition), eq(identifier), eq(digests));
+    }
+
+    @Test
+    public void testStarvedExecutor() {
+        final ExecutorService single = newFixedThreadPool(1);
+        try {
+            final IngestPipeline pipeline = new IngestPipeline(single, 100, 1, ofMillis(200L));
+            final RuntimeRepositoryException ex = assertThrows(RuntimeRepositoryException.class, () ->
+                    pipeline.ingest(mockResolver, partition, identifier, new ByteArrayInputStream(content),
+                        emptyMap(), algorithms));
+            assertTrue(ex.getCause().getMessage().startsWith("Timed out"));
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEmptyContent() {
+        final IngestPipeline pipeline = new IngestPipeline(executor, 1000, 4);
+        final Map<String, String> digests = pipeline.ingest(mockResolver, partition, identifier,
+                new ByteArrayInputStream(new byte[0]), emptyMap(), algorithms);
+        assertEquals("1B2M2Y8AsgTpgAmY7PhCfg==", digests.get("MD5"));
+        assertEquals(0, stored.size());
+    }
+
+    @Test
+    public void testUnreadContent() {
+        final BinaryService.Resolver resolver = mock(BinaryService.Resolver.class);
+        doNothing().when(resolver).setContent(any(), any(), any(), any());
+        final IngestPipeline pipeline = new IngestPipeline(executor, 100, 1);
+        assertEquals(2, pipeline.ingest(resolver, partition, identifier, new ByteArrayInputStream(content),
+                    emptyMap(), algorithms).size());
+    }
+
+    @Test
+    public void testResolverFailure() {
+        final BinaryService.Resolver resolver = mock(BinaryService.Resolver.class);
+        doThrow(new RuntimeRepositoryException("Expected")).when(resolver).setContent(any(), any(), any(), any());
+        final IngestPipeline pipeline = new IngestPipeline(executor, 100, 1);
+        final RuntimeRepositoryException ex = assertThrows(RuntimeRepositoryException.class, () ->
+                pipeline.ingest(resolver, partition, identifier, new ByteArrayInputStream(content), emptyMap(),
+                    algorithms));
+        assertEquals("Expected", ex.getCause().getMessage());
+    }
+
+    @Test
+    public void testReadFailure() throws IOException {
+        final InputStream mockInputStream = mock(InputStream.class);
+        when(mockInputStream.read(any(), anyInt(), anyInt())).thenReturn(100).thenThrow(new IOException("Expected"));
+        final IngestPipeline pipeline = new IngestPipeline(executor, 100, 1);
+        final RuntimeRepositoryException ex = assertThrows(RuntimeRepositoryException.class, () ->
+                pipeline.ingest(mockResolver, partition, identifier, mockInputStream, emptyMap(), algorithms));
+        assertEquals("Expected", ex.getCause().getMessage());
+        assertTrue(stored.size() <= 100);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new IngestPipeline(executor, 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new IngestPipeline(executor, 1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new IngestPipeline(executor, 1000, 4, ZERO));
+    }
+
+    private static byte[] read(final InputStream stream) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int count;
+        while ((count = stream.read(buffer)) >= 0) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.time.Duration.ofSeconds;
+import static java.time.ZoneOffset.UTC;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class LruCacheServiceTest {
+
+    private final TestClock clock = new TestClock();
+
+    @Test
+    public void testHitsAndMisses() {
+        final LruCacheService<String, String> cache = new LruCacheService<>(100);
+        assertEquals("value-a", cache.get("a", k -> "value-" + k));
+        assertEquals("value-a", cache.get("a", k -> "other"));
+        assertNull(cache.get("b", k -> null));
+        assertEquals("value-b", cache.get("b", k -> "value-" + k));
+
+        assertEquals((Long) 1L, cache.getHitCount());
+        assertEquals((Long) 3L, cache.getMissCount());
+        assertEquals((Long) 0L, cache.getEvictionCount());
+        assertEquals((Long) 2L, cache.size());
+    }
+
+    @Test
+    public void testSizeEviction() {
+        final LruCacheService<String, String> cache = new LruCacheService<>(2);
+        final AtomicInteger calls = new AtomicInteger();
+        cache.get("a", k -> k + calls.incrementAndGet());
+        cache.get("b", k -> k + calls.incrementAndGet());
+        cache.get("a", k -> k + calls.incrementAndGet());
+        cache.get("c", k -> k + calls.incrementAndGet());
+
+        assertTrue(cache.size() <= 2L);
+        assertTrue(cache.getEvictionCount() >= 1L);
+
+        final LruCacheService<String, String> single = new LruCacheService<>(1);
+        single.get("a", k -> "first");
+        single.get("b", k -> "second");
+        assertEquals((Long) 1L, single.size());
+        assertEquals("third", single.get("a", k -> "third"));
+        assertEquals((Long) 2L, single.getEvictionCount());
+    }
+
+    @Test
+    public void testMaximumSize() {
+        // a cache of size 17 has 16 segments, and their capacities must still sum to 17
+        final LruCacheService<Integer, Integer> cache = new LruCacheService<>(17);
+        for (int i = 0; i < 1000; ++i) {
+            cache.get(i, k -> k);
+            assertTrue(cache.size() <= 17L);
+        }
+        assertEquals((Long) 17L, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsed() {
+        final LruCacheService<Integer, String> cache = new LruCacheService<>(3);
+        cache.get(0, k -> "zero");
+        cache.get(4, k -> "four");
+        cache.get(0, k -> "other");
+        cache.get(8, k -> "eight");
+        cache.get(12, k -> "twelve");
+
+        // a cache of size 3 has two segments, and 0, 4, 8 and 12 share a segment with a capacity of 2
+        assertEquals("twelve", cache.get(12, k -> "other"));
+        assertEquals("eight", cache.get(8, k -> "other"));
+        assertEquals("other", cache.get(4, k -> "other"));
+    }
+
+    @Test
+    public void testExpireAfterWrite() {
+        final LruCacheService<String, String> cache = new LruCacheService<>(10, ofSeconds(10), null, clock);
+        cache.get("a", k -> "first");
+        clock.advance(5);
+        assertEquals("first", cache.get("a", k -> "second"));
+        clock.advance(5);
+        assertEquals("second", cache.get("a", k -> "second"));
+        assertEquals((Long) 1L, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testExpireAfterAccess() {
+        final LruCacheService<String, String> cache = new LruCacheService<>(10, null, ofSeconds(10), clock);
+        cache.get("a", k -> "first");
+        clock.advance(8);
+        assertEquals("first", cache.get("a", k -> "second"));
+        clock.advance(8);
+        assertEquals("first", cache.get("a", k -> "second"));
+        clock.advance(10);
+        assertEquals("second", cache.get("a", k -> "second"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        final LruCacheService<String, String> cache = new LruCacheService<>(10);
+        cache.get("a", k -> "first");
+        cache.get("b", k -> "first");
+        cache.invalidate("a");
+        assertEquals("second", cache.get("a", k -> "second"));
+        assertEquals("first", cache.get("b", k -> "second"));
+        cache.invalidateAll();
+        assertEquals((Long) 0L, cache.size());
+        assertEquals("third", cache.get("b", k -> "third"));
+        assertEquals((Long) 0L, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final LruCacheService<Integer, Integer> cache = new LruCacheService<>(1000);
+        final AtomicInteger calls = new AtomicInteger();
+        final ExecutorService executor = newFixedThreadPool(8);
+        try {
+            final List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 8; ++i) {
+                tasks.add(executor.submit(() -> {
+                    for (int j = 0; j < 10000; ++j) {
+                        final Integer key = j % 500;
+                        assertEquals(key, cache.get(key, k -> {
+                            calls.incrementAndGet();
+                            return k;
+                        }));
+                    }
+                }));
+            }
+            for (final Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(500, calls.get());
+        assertEquals(80000L, cache.getHitCount() + cache.getMissCount());
+    }
+
+    @Test
+    public void testLoadOutsideLock() throws Exception {
+        // a cache of size 1 has a single segment
+        final LruCacheService<String, String> cache = new LruCacheService<>(1);
+        cache.get("a", k -> "first");
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final ExecutorService executor = newFixedThreadPool(2);
+        try {
+            final Future<String> slow = executor.submit(() -> cache.get("b", k -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "second";
+            }));
+            assertTrue(started.await(5L, SECONDS));
+            final Future<String> waiting = executor.submit(() -> cache.get("b", k -> "other"));
+
+            assertEquals("first", cache.get("a", k -> "other"));
+            assertFalse(slow.isDone());
+            assertFalse(waiting.isDone());
+
+            release.countDown();
+            assertEquals("second", slow.get(5L, SECONDS));
+            assertEquals("second", waiting.get(5L, SECONDS));
+            assertEquals(1, calls.get());
+            assertEquals("second", cache.get("b", k -> "other"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLoadFailure() throws Exception {
+        final LruCacheService<String, String> cache = new LruCacheService<>(10);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = newFixedThreadPool(2);
+        try {
+            final Future<String> failing = executor.submit(() -> cache.get("a", k -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("Expected");
+            }));
+            assertTrue(started.await(5L, SECONDS));
+            final Future<String> waiting = executor.submit(() -> cache.get("a", k -> "other"));
+            release.countDown();
+
+            final ExecutionException ex1 = assertThrows(ExecutionException.class, () -> failing.get(5L, SECONDS));
+            assertTrue(ex1.getCause() instanceof IllegalStateException);
+            try {
+                // the second lookup started a new load after the failure, and its value was cached
+                assertEquals("other", waiting.get(5L, SECONDS));
+                assertEquals("other", cache.get("a", k -> "value"));
+            } catch (final ExecutionException ex2) {
+                // the second lookup waited for the failed load, and nothing was cached
+                assertTrue(ex2.getCause() instanceof IllegalStateException);
+                assertEquals("value", cache.get("a", k -> "value"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInvalidateDuringLoad() {
+        final LruCacheService<String, String> cache = new LruCacheService<>(10);
+        assertEquals("stale", cache.get("a", k -> {
+            cache.invalidate("a");
+            return "stale";
+        }));
+        assertEquals((Long) 0L, cache.size());
+        assertEquals("fresh", cache.get("a", k -> "fresh"));
+    }
+
+    @Test
+    public void testGetIfPresentAndPut() throws Exception {
+        final LruCacheService<String, String> cache = new LruCacheService<>(10, ofSeconds(10), null, clock);
+        assertNull(cache.getIfPresent("a"));
+        cache.put("a", "first");
+        assertEquals("first", cache.getIfPresent("a"));
+        cache.put("a", "second");
+        assertEquals("second", cache.get("a", k -> "other"));
+        assertEquals((Long) 2L, cache.getHitCount());
+        assertEquals((Long) 1L, cache.getMissCount());
+
+        clock.advance(10L);
+        assertNull(cache.getIfPresent("a"));
+        assertEquals((Long) 1L, cache.getEvictionCount());
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = newFixedThreadPool(1);
+        try {
+            final Future<String> slow = executor.submit(() -> cache.get("b", k -> {
+                started.countDown();
+                await(release);
+                return "loaded";
+            }));
+            assertTrue(started.await(5L, SECONDS));
+            // neither method waits for the value that is being computed
+            assertNull(cache.getIfPresent("b"));
+            cache.put("b", "stored");
+            assertEquals("stored", cache.getIfPresent("b"));
+            release.countDown();
+            assertEquals("loaded", slow.get(5L, SECONDS));
+            assertEquals("stored", cache.getIfPresent("b"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new LruCacheService<String, String>(0));
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class TestClock extends Clock {
+        private Instant instant = Instant.parse("2017-11-01T00:00:00Z");
+
+        public void advance(final long seconds) {
+            instant = instant.plusSeconds(seconds);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.trellisldp.vocabulary.RDF.type;
+import static org.trellisldp.vocabulary.Trellis.PreferAudit;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.vocabulary.DC;
+import org.trellisldp.vocabulary.LDP;
+import org.trellisldp.vocabulary.XSD;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class NQuadsTest {
+
+    private static final RDF rdf = new SimpleRDF();
+
+    private final IRI identifier = rdf.createIRI("trellis:repository/resource");
+
+    @Test
+    public void testIRIs() {
+        final Quad quad = rdf.createQuad(PreferAudit, identifier, type, LDP.RDFSource);
+        final String line = write(quad);
+        assertEquals("<trellis:repository/resource> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> " +
+                "<http://www.w3.org/ns/ldp#RDFSource> <http://www.trellisldp.org/ns/trellis#PreferAudit> .", line);
+        assertEquals(quad, NQuads.parse(line, 0));
+        assertEquals(quad, NQuads.parse("x\t" + line + " ", 2));
+
+        final Quad triple = rdf.createQuad(null, identifier, type, LDP.RDFSource);
+        assertEquals(triple, NQuads.parse(write(triple), 0));
+        assertFalse(NQuads.parse(write(triple), 0).getGraphName().isPresent());
+    }
+
+    @Test
+    public void testLiterals() {
+        checkLiteral(rdf.createLiteral("A \"quoted\" title\nwith a \\ and \u00FCn\u00EFcode\r"));
+        checkLiteral(rdf.createLiteral("A title", "en-US"));
+        checkLiteral(rdf.createLiteral("2017-11-01T12:00:00Z", XSD.dateTime));
+        checkLiteral(rdf.createLiteral(""));
+
+        assertEquals(rdf.createLiteral("tab\there \u00E9 \uD83D\uDE00"), NQuads.parse("<trellis:repository/resource> " +
+                    "<http://purl.org/dc/terms/title> \"tab\\there \\u00E9 \\U0001F600\" .", 0).getObject());
+    }
+
+    @Test
+    public void testBlankNodes() {
+        final BlankNode bnode = rdf.createBlankNode();
+        final String line = write(rdf.createQuad(PreferAudit, identifier, DC.relation, bnode));
+        final Quad quad1 = NQuads.parse(line, 0);
+        final Quad quad2 = NQuads.parse(line, 0);
+        assertEquals(quad1.getObject(), quad2.getObject());
+        assertEquals(quad1.getObject(), NQuads.parse(bnode.ntriplesString() +
+                    " <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://www.w3.org/ns/ldp#RDFSource> .", 0)
+                .getSubject());
+        assertNotEquals(quad1.getObject(), NQuads.parse(write(rdf.createQuad(PreferAudit, identifier, DC.relation,
+                            rdf.createBlankNode())), 0).getObject());
+        assertEquals(of(PreferAudit), quad1.getGraphName());
+    }
+
+    @Test
+    public void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> NQuads.parse("", 0));
+        assertThrows(IllegalArgumentException.class, () -> NQuads.parse("<a:b> <c:d> <e:f>", 0));
+        assertThrows(IllegalArgumentException.class, () -> NQuads.parse("<a:b> <c:d> <e:f> . x", 0));
+        assertThrows(IllegalArgumentException.class, () -> NQuads.parse("<a:b> _:c <e:f> .", 0));
+        assertThrows(IllegalArgumentException.class, () -> NQuads.parse("<a:b> <c:d> \"e .", 0));
+        assertThrows(IllegalArgumentException.class, () -> NQuads.parse("<a:b> <c:d> \"e\\q\" .", 0));
+        assertThrows(IllegalArgumentException.class, () -> NQuads.parse("<a:b> <c:d> \"e\\u00\" .", 0));
+        assertThrows(IllegalArgumentException.class, () -> NQuads.parse("<a:b <c:d> <e:f> .", 0));
+        assertThrows(IllegalArgumentException.class, () -> NQuads.parse("_: <c:d> <e:f> .", 0));
+        assertThrows(IllegalArgumentException.class, () -> NQuads.parse("\"a\" <c:d> <e:f> .", 0));
+    }
+
+    private void checkLiteral(final Literal literal) {
+        final Quad quad = rdf.createQuad(PreferAudit, identifier, DC.title, literal);
+        final String line = write(quad);
+        assertFalse(line.contains("\n") || line.contains("\r"));
+        assertEquals(quad, NQuads.parse(line, 0));
+    }
+
+    private static String write(final Quad quad) {
+        final StringBuilder builder = new StringBuilder();
+        NQuads.write(quad, builder);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Optional.of;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.trellisldp.vocabulary.RDF.type;
+import static org.trellisldp.vocabulary.Trellis.PreferAudit;
+import static org.trellisldp.vocabulary.Trellis.PreferServerManaged;
+import static org.trellisldp.vocabulary.Trellis.PreferUserManaged;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.vocabulary.DC;
+import org.trellisldp.vocabulary.LDP;
+import org.trellisldp.vocabulary.PROV;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class NamedGraphResourceTest {
+
+    private static final RDF rdf = new SimpleRDF();
+
+    private final IRI identifier = rdf.createIRI("trellis:repository/resource");
+    private final List<IRI> loaded = new ArrayList<>();
+
+    private NamedGraphResource resource;
+
+    @BeforeEach
+    public void setUp() {
+        loaded.clear();
+        resource = new TestResource();
+    }
+
+    @Test
+    public void testStreamGraph() {
+        final List<Triple> triples = resource.stream(PreferUserManaged).collect(toList());
+        assertEquals(1L, triples.size());
+        assertEquals(DC.title, triples.get(0).getPredicate());
+        assertEquals(asList(PreferUserManaged), loaded);
+    }
+
+    @Test
+    public void testStreamGraphs() {
+        assertEquals(2L, resource.stream(asList(PreferUserManaged, PreferServerManaged, PreferUserManaged)).count());
+        assertEquals(asList(PreferUserManaged, PreferServerManaged), loaded);
+        assertEquals(0L, resource.stream(singleton(rdf.createIRI("http://example.org/Other"))).count());
+        assertTrue(resource.supportsGraphPushdown());
+    }
+
+    @Test
+    public void testStreamAll() {
+        final List<Quad> quads = resource.stream().collect(toList());
+        assertEquals(3L, quads.size());
+        assertEquals(of(PreferUserManaged), quads.get(0).getGraphName());
+        assertEquals(of(PreferServerManaged), quads.get(1).getGraphName());
+        assertEquals(of(PreferAudit), quads.get(2).getGraphName());
+        assertEquals(asList(PreferUserManaged, PreferServerManaged, PreferAudit), loaded);
+    }
+
+    private class TestResource extends NamedGraphResource {
+
+        @Override
+        protected Collection<IRI> getGraphNames() {
+            return asList(PreferUserManaged, PreferServerManaged, PreferAudit);
+        }
+
+        @Override
+        protected Stream<? extends Triple> loadGraph(final IRI graphName) {
+            loaded.add(graphName);
+            if (PreferUserManaged.equals(graphName)) {
+                return Stream.of(rdf.createTriple(identifier, DC.title, rdf.createLiteral("A title")));
+            } else if (PreferServerManaged.equals(graphName)) {
+                return Stream.of(rdf.createTriple(identifier, type, LDP.RDFSource));
+            } else if (PreferAudit.equals(graphName)) {
+                return Stream.of(rdf.createTriple(identifier, PROV.wasGeneratedBy, rdf.createBlankNode()));
+            }
+            return Stream.empty();
+        }
+
+        @Override
+        public IRI getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public IRI getInteractionModel() {
+            return LDP.RDFSource;
+        }
+
+        @Override
+        public List<VersionRange> getMementos() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public Collection<IRI> getTypes() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public Instant getModified() {
+            return Instant.now();
+        }
+
+        @Override
+        public Boolean hasAcl() {
+            return false;
+        }
+    }
+}
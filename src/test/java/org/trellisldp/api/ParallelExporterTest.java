@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Collections.singleton;
+import static java.util.Optional.of;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static java.util.stream.IntStream.range;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.vocabulary.RDF.type;
+import static org.trellisldp.vocabulary.Trellis.PreferUserManaged;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.vocabulary.DC;
+import org.trellisldp.vocabulary.LDP;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class ParallelExporterTest {
+
+    private static final RDF rdf = new SimpleRDF();
+    private static final String partition = "repository";
+    private static final Set<IRI> graphs = singleton(PreferUserManaged);
+
+    private final List<IRI> identifiers = range(0, 250).mapToObj(i -> rdf.createIRI("trellis:repository/" + i))
+        .collect(toList());
+
+    private ExecutorService executor;
+
+    @Mock
+    private ResourceService mockResourceService;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        executor = newFixedThreadPool(3);
+        doCallRealMethod().when(mockResourceService).scanSegment(any(), any(), any());
+        doCallRealMethod().when(mockResourceService).getAll(any());
+        when(mockResourceService.scan(any())).thenAnswer(inv ->
+                identifiers.stream().map(id -> rdf.createTriple(id, type, LDP.RDFSource)));
+        identifiers.forEach(id -> {
+            final Resource resource = mock(Resource.class);
+            when(resource.getIdentifier()).thenReturn(id);
+            when(resource.stream(graphs)).thenAnswer(inv ->
+                    Stream.of(rdf.createTriple(id, DC.title, rdf.createLiteral("Title " + id.getIRIString()))));
+            when(mockResourceService.get(id)).thenReturn(of(resource));
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testExport() {
+        final ConcurrentLinkedQueue<Quad> quads = new ConcurrentLinkedQueue<>();
+        final AtomicLong progress = new AtomicLong();
+        final ParallelExporter exporter = new ParallelExporter(mockResourceService, executor, 4, 5);
+
+        assertEquals((Long) 250L, exporter.export(partition, graphs, quads::add, progress::set));
+        assertEquals(250L, progress.get());
+        assertEquals(250L, quads.size());
+        assertEquals(identifiers.stream().collect(toSet()),
+                quads.stream().map(Quad::getSubject).collect(toSet()));
+        assertTrue(quads.stream().allMatch(quad -> quad.getGraphName().equals(of(quad.getSubject()))));
+    }
+
+    @Test
+    public void testSegments() {
+        final long total = range(0, 4).mapToLong(segment ->
+                mockResourceService.scanSegment(partition, segment, 4).count()).sum();
+        assertEquals(250L, total);
+        assertEquals(250L, mockResourceService.scanSegment(partition, 0, 1).count());
+    }
+
+    @Test
+    public void testExportFailure() {
+        when(mockResourceService.get(identifiers.get(42))).thenThrow(new IllegalStateException("Expected"));
+        final ParallelExporter exporter = new ParallelExporter(mockResourceService, executor, 2, 1);
+        assertThrows(RuntimeRepositoryException.class, () -> exporter.export(partition, graphs, quad -> { }));
+    }
+
+    @Test
+    public void testExportError() {
+        when(mockResourceService.get(identifiers.get(42))).thenThrow(new AssertionError("Expected"));
+        final ParallelExporter exporter = new ParallelExporter(mockResourceService, executor, 2, 1);
+        final RuntimeRepositoryException ex = assertThrows(RuntimeRepositoryException.class, () ->
+                exporter.export(partition, graphs, quad -> { }));
+        assertTrue(ex.getCause() instanceof AssertionError);
+    }
+
+    @Test
+    public void testConsumerFailure() {
+        final ParallelExporter exporter = new ParallelExporter(mockResourceService, executor, 3, 1);
+        assertThrows(IllegalStateException.class, () -> exporter.export(partition, graphs, quad -> {
+            throw new IllegalStateException("Expected");
+        }));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new ParallelExporter(mockResourceService, executor, 0, 10));
+        assertThrows(IllegalArgumentException.class, () ->
+                new ParallelExporter(mockResourceService, executor, 2, 0));
+    }
+}
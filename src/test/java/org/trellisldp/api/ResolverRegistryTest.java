@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.HashSet;
+
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class ResolverRegistryTest {
+
+    private static final RDF rdf = new SimpleRDF();
+
+    @Mock
+    private BinaryService.Resolver mockFileResolver;
+
+    @Mock
+    private BinaryService.Resolver mockHttpResolver;
+
+    @Mock
+    private BinaryService.Resolver mockOtherResolver;
+
+    private ResolverRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        when(mockFileResolver.getUriSchemes()).thenReturn(singletonList("file"));
+        when(mockHttpResolver.getUriSchemes()).thenReturn(asList("http", "HTTPS"));
+        when(mockOtherResolver.getUriSchemes()).thenReturn(asList("file", "s3"));
+        registry = new ResolverRegistry(asList(mockFileResolver, mockHttpResolver, mockOtherResolver));
+    }
+
+    @Test
+    public void testLookup() {
+        assertEquals(mockFileResolver, registry.getResolver(rdf.createIRI("file:some/path")).get());
+        assertEquals(mockFileResolver, registry.getResolver("FILE:///some/path").get());
+        assertEquals(mockHttpResolver, registry.getResolver("http://example.com/file").get());
+        assertEquals(mockHttpResolver, registry.getResolver("Https://example.com/file").get());
+        assertEquals(mockOtherResolver, registry.getResolver("s3://bucket/key").get());
+        assertSame(registry.getResolver("file:a"), registry.getResolver("file:b"));
+        assertEquals(new HashSet<>(asList("file", "http", "https", "s3")), registry.getUriSchemes());
+    }
+
+    @Test
+    public void testMissing() {
+        assertFalse(registry.getResolver("ftp://example.com/file").isPresent());
+        assertFalse(registry.getResolver("htt://example.com/file").isPresent());
+        assertFalse(registry.getResolver("https2://example.com/file").isPresent());
+        assertFalse(registry.getResolver("relative/path:with-colon").isPresent());
+        assertFalse(registry.getResolver(":no-scheme").isPresent());
+        assertFalse(registry.getResolver("file").isPresent());
+        assertFalse(registry.getResolver("").isPresent());
+    }
+
+    @Test
+    public void testEmpty() {
+        final ResolverRegistry empty = new ResolverRegistry(emptyList());
+        assertFalse(empty.getResolver("file:some/path").isPresent());
+        assertEquals(0, empty.getUriSchemes().size());
+    }
+}
@@ -13,11 +13,15 @@
  */
 package org.trellisldp.api;
 
+import static java.time.Instant.parse;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -26,8 +30,10 @@ import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.trellisldp.vocabulary.RDF.type;
 
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -69,6 +75,10 @@ public class ResourceServiceTest {
         doCallRealMethod().when(mockResourceService).unskolemize(any());
         doCallRealMethod().when(mockResourceService).getContainer(any());
         doCallRealMethod().when(mockResourceService).export(any(), any());
+        doCallRealMethod().when(mockResourceService).getAll(any());
+        doCallRealMethod().when(mockResourceService).getAsync(any());
+        doCallRealMethod().when(mockResourceService).getAsync(any(), any());
+        doCallRealMethod().when(mockResourceService).scan(any(), any(), any());
         doCallRealMethod().when(mockResourceService).toInternal(any(), any());
         doCallRealMethod().when(mockResourceService).toExternal(any(), any());
 
@@ -113,6 +123,58 @@ public class ResourceServiceTest {
         assertEquals(rdf.createLiteral("A title"), export.get(0).getObject());
     }
 
+    @Test
+    public void testGetAll() {
+        final IRI missing = rdf.createIRI("trellis:repository/missing");
+        when(mockResourceService.get(eq(existing))).thenReturn(of(mockResource));
+        when(mockResourceService.get(eq(missing))).thenReturn(empty());
+
+        final List<Resource> resources = mockResourceService.getAll(asList(existing, missing)).collect(toList());
+        assertEquals(1L, resources.size());
+        assertEquals(mockResource, resources.get(0));
+        assertEquals(0L, mockResourceService.getAll(emptyList()).count());
+    }
+
+    @Test
+    public void testGetAsync() throws Exception {
+        final Instant time = parse("2017-08-01T12:00:00Z");
+        final IRI missing = rdf.createIRI("trellis:repository/missing");
+        when(mockResourceService.get(eq(existing))).thenReturn(of(mockResource));
+        when(mockResourceService.get(eq(existing), eq(time))).thenReturn(of(mockResource));
+        when(mockResourceService.get(eq(missing))).thenReturn(empty());
+
+        assertEquals(of(mockResource), mockResourceService.getAsync(existing).get());
+        assertEquals(of(mockResource), mockResourceService.getAsync(existing, time).get());
+        assertFalse(mockResourceService.getAsync(missing).thenApply(Optional::isPresent).get());
+    }
+
+    @Test
+    public void testScanPages() {
+        final IRI other = rdf.createIRI("trellis:repository/other");
+        final IRI another = rdf.createIRI("trellis:repository/another");
+        when(mockResourceService.scan(any())).thenAnswer(inv -> Stream.of(rdf.createTriple(existing, type,
+                        LDP.Container), rdf.createTriple(other, type, LDP.RDFSource),
+                    rdf.createTriple(another, type, LDP.NonRDFSource)));
+
+        final ScanPage first = mockResourceService.scan("repository", null, 2);
+        assertEquals(2L, first.getTriples().size());
+        assertEquals(existing, first.getTriples().get(0).getSubject());
+        assertTrue(first.getContinuation().isPresent());
+
+        final ScanPage second = mockResourceService.scan("repository", first.getContinuation().get(), 2);
+        assertEquals(1L, second.getTriples().size());
+        assertEquals(another, second.getTriples().get(0).getSubject());
+        assertFalse(second.getContinuation().isPresent());
+
+        final ScanPage all = mockResourceService.scan("repository", null, 3);
+        assertEquals(3L, all.getTriples().size());
+        assertFalse(all.getContinuation().isPresent());
+
+        assertThrows(IllegalArgumentException.class, () -> mockResourceService.scan("repository", null, 0));
+        assertThrows(IllegalArgumentException.class, () -> mockResourceService.scan("repository", "!invalid", 2));
+        assertThrows(IllegalArgumentException.class, () -> mockResourceService.scan("repository", "LTE", 2));
+    }
+
     @Test
     public void testGetContainer() {
         final IRI root = rdf.createIRI("trellis:repository");
@@ -63,6 +63,7 @@ public class ResourceTest {
         doCallRealMethod().when(mockResource).isMemento();
         doCallRealMethod().when(mockResource).getInbox();
         doCallRealMethod().when(mockResource).getAnnotationService();
+        doCallRealMethod().when(mockResource).supportsGraphPushdown();
 
         when(mockResource.stream()).thenAnswer((x) -> empty());
     }
@@ -80,6 +81,7 @@ public class ResourceTest {
         assertFalse(mockResource.isMemento());
         assertFalse(mockResource.getInbox().isPresent());
         assertFalse(mockResource.getAnnotationService().isPresent());
+        assertFalse(mockResource.supportsGraphPushdown());
     }
 
     @Test
@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.Instant.parse;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.vocabulary.AS;
+import org.trellisldp.vocabulary.LDP;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class StreamingActivityStreamServiceTest {
+
+    private static final RDF rdf = new SimpleRDF();
+    private static final Instant time = parse("2017-11-01T12:00:00Z");
+
+    private final ActivityStreamService service = new StreamingActivityStreamService();
+
+    @Mock
+    private Event mockEvent;
+
+    @Mock
+    private Event mockMinimalEvent;
+
+    @Mock
+    private IRI mockQuotedIRI;
+
+    @Mock
+    private IRI mockEscapedIRI;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        when(mockQuotedIRI.getIRIString()).thenReturn("info:user/\"quoted\"");
+        when(mockEscapedIRI.getIRIString()).thenReturn("urn:uuid:\\tab\t");
+        when(mockEvent.getIdentifier()).thenReturn(rdf.createIRI("urn:uuid:12345"));
+        when(mockEvent.getAgents()).thenReturn(asList(rdf.createIRI("info:user/test"), mockQuotedIRI));
+        when(mockEvent.getTarget()).thenReturn(of(rdf.createIRI("http://example.com/resource")));
+        when(mockEvent.getTypes()).thenReturn(asList(AS.Update, rdf.createIRI("http://example.com/Type")));
+        when(mockEvent.getTargetTypes()).thenReturn(singletonList(LDP.RDFSource));
+        when(mockEvent.getCreated()).thenReturn(time);
+        when(mockEvent.getInbox()).thenReturn(of(rdf.createIRI("http://example.com/inbox")));
+
+        when(mockMinimalEvent.getIdentifier()).thenReturn(mockEscapedIRI);
+        when(mockMinimalEvent.getAgents()).thenReturn(emptyList());
+        when(mockMinimalEvent.getTarget()).thenReturn(empty());
+        when(mockMinimalEvent.getTypes()).thenReturn(singletonList(AS.Delete));
+        when(mockMinimalEvent.getTargetTypes()).thenReturn(emptyList());
+        when(mockMinimalEvent.getCreated()).thenReturn(time);
+        when(mockMinimalEvent.getInbox()).thenReturn(empty());
+    }
+
+    @Test
+    public void testSerialize() {
+        assertEquals(of(full()), service.serialize(mockEvent));
+        assertEquals(of(full()), service.serialize(mockEvent));
+        assertEquals(of(minimal()), service.serialize(mockMinimalEvent));
+    }
+
+    @Test
+    public void testSerializeAll() {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        assertEquals((Integer) 2, service.serializeAll(asList(mockEvent, mockMinimalEvent), stream));
+        assertEquals("[" + full() + "," + minimal() + "]", new String(stream.toByteArray(), UTF_8));
+
+        final ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        assertEquals((Integer) 0, service.serializeAll(emptyList(), empty));
+        assertEquals("[]", new String(empty.toByteArray(), UTF_8));
+    }
+
+    @Test
+    public void testWriterError() throws IOException {
+        final Writer mockWriter = mock(Writer.class);
+        doThrow(new IOException("Expected")).when(mockWriter).write(anyString());
+        assertThrows(RuntimeRepositoryException.class, () -> service.serialize(mockEvent, mockWriter));
+        assertThrows(RuntimeRepositoryException.class, () ->
+                service.serializeAll(singletonList(mockEvent), mockWriter));
+    }
+
+    @Test
+    public void testTypeCache() {
+        final CacheService<IRI, String> cache = new LruCacheService<>(100);
+        final ActivityStreamService cached = new StreamingActivityStreamService(cache);
+        cached.serialize(mockEvent);
+        cached.serialize(mockMinimalEvent);
+        assertEquals("\"Update\"", cache.get(AS.Update, iri -> "missing"));
+        assertEquals("\"http://www.w3.org/ns/ldp#RDFSource\"", cache.get(LDP.RDFSource, iri -> "missing"));
+        assertEquals((Long) 4L, ((LruCacheService<IRI, String>) cache).size());
+    }
+
+    private static String full() {
+        return "{\"@context\":\"https://www.w3.org/ns/activitystreams\",\"id\":\"urn:uuid:12345\"," +
+            "\"type\":[\"Update\",\"http://example.com/Type\"]," +
+            "\"actor\":[\"info:user/test\",\"info:user/\\\"quoted\\\"\"]," +
+            "\"object\":{\"id\":\"http://example.com/resource\",\"type\":[\"http://www.w3.org/ns/ldp#RDFSource\"]," +
+            "\"inbox\":\"http://example.com/inbox\"},\"published\":\"2017-11-01T12:00:00Z\"}";
+    }
+
+    private static String minimal() {
+        return "{\"@context\":\"https://www.w3.org/ns/activitystreams\",\"id\":\"urn:uuid:\\\\tab\\t\"," +
+            "\"type\":[\"Delete\"],\"published\":\"2017-11-01T12:00:00Z\"}";
+    }
+}
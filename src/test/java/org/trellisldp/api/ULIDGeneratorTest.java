@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class ULIDGeneratorTest {
+
+    private static final String ULID = "[0-7][0-9A-HJKMNP-TV-Z]{25}";
+
+    @Mock
+    private Clock mockClock;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+    }
+
+    @Test
+    public void testSupplier() {
+        when(mockClock.millis()).thenReturn(1469918176385L);
+        final IdentifierService service = new ULIDGenerator("", mockClock);
+        final String id = service.getSupplier().get();
+        assertTrue(id.matches(ULID), id);
+        assertTrue(id.startsWith("01ARYZ6S41"), id);
+        assertTrue(service.getSupplier("trellis:repository/").get().matches("trellis:repository/" + ULID));
+        assertTrue(new ULIDGenerator().getSupplier().get().matches(ULID));
+    }
+
+    @Test
+    public void testMonotonic() {
+        when(mockClock.millis()).thenReturn(1000L, 1000L, 1000L, 2000L, 1500L, 1500L, 3000L);
+        final Supplier<String> supplier = new ULIDGenerator("", mockClock).getSupplier();
+        String previous = supplier.get();
+        for (int i = 0; i < 6; ++i) {
+            final String id = supplier.get();
+            assertTrue(previous.compareTo(id) < 0, previous + " >= " + id);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testShard() {
+        when(mockClock.millis()).thenReturn(1000L);
+        final Supplier<String> supplier = new ULIDGenerator("node1-", mockClock).getSupplier("trellis:repository/");
+        assertTrue(supplier.get().matches("trellis:repository/node1-" + ULID));
+        assertThrows(IllegalArgumentException.class, () -> new ULIDGenerator("node/1"));
+    }
+
+    @Test
+    public void testHierarchy() {
+        final Supplier<String> supplier = new ULIDGenerator("a-").getSupplier("trellis:repository/", 4, 2);
+        for (int i = 0; i < 1000; ++i) {
+            final String id = supplier.get();
+            assertTrue(id.matches("trellis:repository/([0-9A-Z]{2}/){4}a-" + ULID), id);
+            final String ulid = id.substring(id.lastIndexOf('-') + 1);
+            assertEquals(id.substring(19, 31).replace("/", ""), ulid.substring(18));
+        }
+        final String id = new ULIDGenerator().getSupplier("", 1, 16).get();
+        assertTrue(id.matches("[0-9A-Z]{16}/" + ULID), id);
+        assertEquals(id.substring(0, 16), id.substring(27));
+    }
+
+    @Test
+    public void testHierarchySpread() {
+        when(mockClock.millis()).thenReturn(1000L);
+        final Supplier<String> supplier = new ULIDGenerator("", mockClock).getSupplier("", 2, 1);
+        final Set<String> leaves = new HashSet<>();
+        for (int i = 0; i < 100; ++i) {
+            final String id = supplier.get();
+            leaves.add(id.substring(0, id.lastIndexOf('/')));
+        }
+        // identifiers minted within the same millisecond do not share a single leaf
+        assertTrue(leaves.size() > 1);
+    }
+
+    @Test
+    public void testUniqueness() throws Exception {
+        final Supplier<String> supplier = new ULIDGenerator().getSupplier("", 2, 2);
+        final Set<String> ids = ConcurrentHashMap.newKeySet();
+        final ExecutorService executor = newFixedThreadPool(4);
+        try {
+            final List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 4; ++i) {
+                tasks.add(executor.submit(() -> {
+                    String previous = "";
+                    for (int j = 0; j < 10000; ++j) {
+                        final String id = supplier.get();
+                        final String ulid = id.substring(id.lastIndexOf('/') + 1);
+                        assertTrue(previous.compareTo(ulid) < 0);
+                        ids.add(id);
+                        previous = ulid;
+                    }
+                }));
+            }
+            for (final Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(40000, ids.size());
+    }
+
+    @Test
+    public void testInvalidHierarchy() {
+        final IdentifierService service = new ULIDGenerator();
+        assertThrows(IllegalArgumentException.class, () -> service.getSupplier("", -1, 2));
+        assertThrows(IllegalArgumentException.class, () -> service.getSupplier("", 2, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.getSupplier("", 3, 9));
+        assertThrows(IllegalArgumentException.class, () -> service.getSupplier("", 1, 17));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.util.UUID.fromString;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class UUIDGeneratorTest {
+
+    private final IdentifierService service = new UUIDGenerator();
+
+    @Test
+    public void testSupplier() {
+        final String id = service.getSupplier().get();
+        final UUID uuid = fromString(id);
+        assertEquals(id, uuid.toString());
+        assertEquals(4, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertTrue(service.getSupplier("trellis:repository/").get().matches(
+                    "trellis:repository/[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}"));
+    }
+
+    @Test
+    public void testHierarchy() {
+        final Supplier<String> supplier = service.getSupplier("trellis:repository/", 4, 2);
+        for (int i = 0; i < 1000; ++i) {
+            final String id = supplier.get();
+            assertTrue(id.matches("trellis:repository/([0-9a-f]{2}/){4}[0-9a-f-]{36}"), id);
+            final String uuid = id.substring(id.lastIndexOf('/') + 1);
+            fromString(uuid);
+            assertEquals("trellis:repository/" + uuid.substring(0, 2) + "/" + uuid.substring(2, 4) + "/" +
+                    uuid.substring(4, 6) + "/" + uuid.substring(6, 8) + "/" + uuid, id);
+        }
+        final String id = service.getSupplier("", 3, 3).get();
+        final String digits = id.substring(id.lastIndexOf('/') + 1).replace("-", "");
+        assertEquals(digits.substring(0, 3) + "/" + digits.substring(3, 6) + "/" + digits.substring(6, 9) + "/",
+                id.substring(0, 12));
+        assertTrue(service.getSupplier("", 1, 32).get().matches("[0-9a-f]{32}/[0-9a-f-]{36}"));
+    }
+
+    @Test
+    public void testUniqueness() throws Exception {
+        final Supplier<String> supplier = service.getSupplier("", 2, 2);
+        final Set<String> ids = ConcurrentHashMap.newKeySet();
+        final ExecutorService executor = newFixedThreadPool(4);
+        try {
+            final List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 4; ++i) {
+                tasks.add(executor.submit(() -> {
+                    for (int j = 0; j < 10000; ++j) {
+                        ids.add(supplier.get());
+                    }
+                }));
+            }
+            for (final Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(40000, ids.size());
+    }
+
+    @Test
+    public void testInvalidHierarchy() {
+        assertThrows(IllegalArgumentException.class, () -> service.getSupplier("", -1, 2));
+        assertThrows(IllegalArgumentException.class, () -> service.getSupplier("", 2, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.getSupplier("", 11, 3));
+    }
+}
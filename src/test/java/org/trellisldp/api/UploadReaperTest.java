@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.time.Duration.ZERO;
+import static java.time.Duration.ofMillis;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class UploadReaperTest {
+
+    private final FileResolver mockResolver = mock(FileResolver.class);
+
+    @Test
+    public void testReap() {
+        when(mockResolver.reapExpiredUploads()).thenReturn(10L, 5L);
+        final AtomicLong last = new AtomicLong();
+        try (final UploadReaper reaper = new UploadReaper(mockResolver, ofMillis(3600000L), last::set)) {
+            assertEquals((Long) 10L, reaper.reap());
+            assertEquals(10L, last.get());
+            assertEquals((Long) 5L, reaper.reap());
+            assertEquals(5L, last.get());
+            assertEquals((Long) 15L, reaper.getReclaimedBytes());
+        }
+    }
+
+    @Test
+    public void testScheduledRuns() throws InterruptedException {
+        when(mockResolver.reapExpiredUploads()).thenThrow(new RuntimeRepositoryException("Expected"))
+            .thenReturn(7L);
+        final CountDownLatch latch = new CountDownLatch(2);
+        try (final UploadReaper reaper = new UploadReaper(mockResolver, ofMillis(10L), bytes -> latch.countDown())) {
+            assertTrue(latch.await(5, SECONDS));
+            assertTrue(reaper.getReclaimedBytes() >= 14L);
+        }
+    }
+
+    @Test
+    public void testScheduledRunsAfterUncheckedFailures() throws InterruptedException {
+        when(mockResolver.reapExpiredUploads()).thenThrow(new UncheckedIOException(new IOException("Expected")))
+            .thenReturn(3L);
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        try (final UploadReaper reaper = new UploadReaper(mockResolver, ofMillis(10L), bytes -> {
+                if (calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("Expected");
+                }
+                latch.countDown();
+            })) {
+            assertTrue(latch.await(5, SECONDS));
+        }
+    }
+
+    @Test
+    public void testFailureListener() throws InterruptedException {
+        final RuntimeRepositoryException failure = new RuntimeRepositoryException("Expected");
+        when(mockResolver.reapExpiredUploads()).thenThrow(failure).thenThrow(new IllegalStateException("Expected"))
+            .thenReturn(1L);
+        final List<RuntimeException> failures = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        try (final UploadReaper reaper = new UploadReaper(mockResolver, ofMillis(10L), bytes -> latch.countDown(),
+                    ex -> {
+                        failures.add(ex);
+                        throw new IllegalStateException("Expected");
+                    })) {
+            assertTrue(latch.await(5, SECONDS));
+            assertEquals((Long) 2L, reaper.getFailureCount());
+            assertEquals(2, failures.size());
+            assertSame(failure, failures.get(0));
+        }
+    }
+
+    @Test
+    public void testInvalidInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new UploadReaper(mockResolver, ZERO));
+    }
+}
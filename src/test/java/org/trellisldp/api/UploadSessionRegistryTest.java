@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.api;
+
+import static java.time.Duration.ofMinutes;
+import static java.time.Instant.parse;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class UploadSessionRegistryTest {
+
+    private static final Instant time = parse("2017-11-01T12:00:00Z");
+
+    private final Clock mockClock = mock(Clock.class);
+
+    private UploadSessionRegistry<String> registry;
+
+    @BeforeEach
+    public void setUp() {
+        when(mockClock.millis()).thenReturn(time.toEpochMilli());
+        registry = new UploadSessionRegistry<>(ofMinutes(10), mockClock);
+        registry.register("upload-1", "session-1");
+        registry.register("upload-2", "session-2");
+    }
+
+    @Test
+    public void testExpiry() {
+        advance(6);
+        assertEquals(of("session-1"), registry.get("upload-1"));
+        assertTrue(registry.contains("upload-2"));
+
+        advance(5);
+        assertEquals(of("session-1"), registry.get("upload-1"));
+        assertFalse(registry.contains("upload-2"));
+        assertEquals(empty(), registry.get("upload-2"));
+        assertEquals((Integer) 2, registry.size());
+
+        final Map<String, String> expired = registry.expire();
+        assertEquals(1, expired.size());
+        assertEquals("session-2", expired.get("upload-2"));
+        assertEquals((Integer) 1, registry.size());
+        assertTrue(registry.expire().isEmpty());
+
+        assertTrue(registry.isExpired(time));
+        assertFalse(registry.isExpired(time.plusSeconds(600)));
+    }
+
+    @Test
+    public void testRemove() {
+        assertEquals(of("session-1"), registry.remove("upload-1"));
+        assertEquals(empty(), registry.remove("upload-1"));
+        assertFalse(registry.contains("upload-1"));
+        assertEquals(empty(), registry.remove("unknown"));
+    }
+
+    @Test
+    public void testNoExpiry() {
+        final UploadSessionRegistry<String> unlimited = new UploadSessionRegistry<>(null, mockClock);
+        unlimited.register("upload", "session");
+        advance(100000);
+        assertTrue(unlimited.contains("upload"));
+        assertFalse(unlimited.isExpired(time));
+        assertTrue(unlimited.expire().isEmpty());
+    }
+
+    private void advance(final long minutes) {
+        final long now = mockClock.millis();
+        when(mockClock.millis()).thenReturn(now + minutes * 60000L);
+    }
+}